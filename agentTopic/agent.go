@@ -14,6 +14,7 @@ import (
 	"sort"
 	"strconv"
 	"strings"
+	"sync/atomic"
 	"time"
 
 	"github.com/IBM/sarama"
@@ -41,6 +42,9 @@ const (
 	HeartbeatInterval = 30 * time.Second
 	DataInterval      = 10 * time.Second
 	CommandPollDelay  = 8 * time.Second
+
+	// Every Nth sample carries the complete process and connection lists instead of a delta
+	FullSnapshotEvery = 30
 )
 
 var config AgentConfig
@@ -68,6 +72,13 @@ type MetricReport struct {
 	BytesSentSec uint64    `json:"bytesSentSec"`
 	BytesRecvSec uint64    `json:"bytesRecvSec"`
 	Timestamp    time.Time `json:"timestamp"`
+
+	// Delta encoding: with a baseSequence, processes and networkConnections only hold entries
+	// added or changed since that sample, and removals are listed separately
+	Sequence           uint64              `json:"sequence"`
+	BaseSequence       *uint64             `json:"baseSequence,omitempty"`
+	RemovedProcessPids []int32             `json:"removedProcessPids,omitempty"`
+	RemovedConnections []NetworkConnection `json:"removedConnections,omitempty"`
 }
 
 type ProcessModel struct {
@@ -139,6 +150,94 @@ func initNetworkStats() {
 	}
 }
 
+// ==================================================================
+//  Delta Snapshots
+// ==================================================================
+
+var (
+	sequence             uint64
+	sentSequence         uint64
+	sentProcesses        map[int32]ProcessModel
+	sentConnections      map[string]NetworkConnection
+	samplesSinceFull     int
+	fullSnapshotRequired atomic.Bool
+)
+
+type snapshotState struct {
+	processes   map[int32]ProcessModel
+	connections map[string]NetworkConnection
+}
+
+func connectionKey(c NetworkConnection) string {
+	return fmt.Sprintf("%d|%s|%d|%s|%d", c.Pid, c.LocalAddress, c.LocalPort, c.RemoteAddress, c.RemotePort)
+}
+
+// encodeDelta numbers the report and, unless a full snapshot is due, replaces its lists with the
+// changes since the last sample Kafka accepted. The returned state becomes the new baseline once
+// the report has been sent.
+func encodeDelta(report *MetricReport) snapshotState {
+	sequence++
+	report.Sequence = sequence
+
+	current := snapshotState{
+		processes:   make(map[int32]ProcessModel, len(report.Processes)),
+		connections: make(map[string]NetworkConnection, len(report.NetworkConnections)),
+	}
+	for _, p := range report.Processes {
+		current.processes[p.Pid] = p
+	}
+	for _, c := range report.NetworkConnections {
+		current.connections[connectionKey(c)] = c
+	}
+
+	full := sentProcesses == nil || samplesSinceFull >= FullSnapshotEvery || fullSnapshotRequired.Swap(false)
+	if full {
+		return current
+	}
+
+	base := sentSequence
+	report.BaseSequence = &base
+
+	changedProcesses := []ProcessModel{}
+	for pid, p := range current.processes {
+		if previous, ok := sentProcesses[pid]; !ok || previous != p {
+			changedProcesses = append(changedProcesses, p)
+		}
+	}
+	for pid := range sentProcesses {
+		if _, ok := current.processes[pid]; !ok {
+			report.RemovedProcessPids = append(report.RemovedProcessPids, pid)
+		}
+	}
+
+	changedConnections := []NetworkConnection{}
+	for key, c := range current.connections {
+		if previous, ok := sentConnections[key]; !ok || previous != c {
+			changedConnections = append(changedConnections, c)
+		}
+	}
+	for key, c := range sentConnections {
+		if _, ok := current.connections[key]; !ok {
+			report.RemovedConnections = append(report.RemovedConnections, c)
+		}
+	}
+
+	report.Processes = changedProcesses
+	report.NetworkConnections = changedConnections
+	return current
+}
+
+func markSent(report MetricReport, state snapshotState) {
+	sentSequence = report.Sequence
+	sentProcesses = state.processes
+	sentConnections = state.connections
+	if report.BaseSequence == nil {
+		samplesSinceFull = 0
+	} else {
+		samplesSinceFull++
+	}
+}
+
 // ==================================================================
 //  Main Application
 // ==================================================================
@@ -193,6 +292,7 @@ func main() {
 	// Main data collection loop
 	for {
 		report := collectMetrics()
+		state := encodeDelta(&report)
 
 		jsonBytes, err := json.Marshal(report)
 		if err != nil {
@@ -206,8 +306,10 @@ func main() {
 			Value: sarama.ByteEncoder(jsonBytes),
 		}
 
-		// Add agent metadata as headers if registered
+		// Add agent metadata as headers if registered, and key by agent ID so all
+		// reports of one agent land on the same partition and stay ordered
 		if config.AgentID != "" {
+			msg.Key = sarama.StringEncoder(config.AgentID)
 			msg.Headers = []sarama.RecordHeader{
 				{Key: []byte("X-Agent-ID"), Value: []byte(config.AgentID)},
 				{Key: []byte("X-Agent-Key"), Value: []byte(config.ApiKey)},
@@ -217,7 +319,10 @@ func main() {
 		_, _, err = producer.SendMessage(msg)
 		if err != nil {
 			log.Printf("❌ Kafka Error: %v", err)
+			// The backend may or may not have this sample; start over from a full snapshot
+			fullSnapshotRequired.Store(true)
 		} else {
+			markSent(report, state)
 			fmt.Printf(
 				"✅ Sent: [CPU: %.1f%% | Up: %d KB/s | Down: %d KB/s | Conns: %d]\n",
 				report.CpuUsage,
@@ -326,6 +431,10 @@ func executeCommand(command AgentCommand) (string, string) {
 		}
 		return "SUCCESS", fmt.Sprintf("Applied outbound block rule for IP %s", ip)
 
+	case "FULL_SNAPSHOT":
+		fullSnapshotRequired.Store(true)
+		return "SUCCESS", "Next sample will carry a full snapshot"
+
 	default:
 		return "FAILED", "Unsupported command: " + commandName
 	}
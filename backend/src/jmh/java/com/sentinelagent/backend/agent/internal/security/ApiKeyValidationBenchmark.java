@@ -0,0 +1,60 @@
+package com.sentinelagent.backend.agent.internal.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checking an agent's API key: the BCrypt comparison in {@link SecureApiKeyService#validateApiKey}, for a
+ * matching and a wrong key, against the {@link AgentCredentialCache} lookup that spares repeat requests
+ * from it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiKeyValidationBenchmark {
+
+    private static final String AGENT_ID = "8f14e45f-ceea-467f-a8ad-1b9c3a3c2d5e";
+
+    private final SecureApiKeyService apiKeyService = new SecureApiKeyService();
+    private final AgentCredentialCache credentialCache = new AgentCredentialCache(300, 300, 10_000);
+    private String apiKey;
+    private String wrongKey;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        apiKey = apiKeyService.generateApiKey();
+        wrongKey = apiKeyService.generateApiKey();
+        storedHash = apiKeyService.hashApiKey(apiKey);
+        credentialCache.put(apiKey, storedHash, new VerifiedAgent(AGENT_ID, "web-01", "ACTIVE"),
+                credentialCache.generation());
+    }
+
+    @Benchmark
+    public boolean validateApiKey() {
+        return apiKeyService.validateApiKey(apiKey, storedHash);
+    }
+
+    @Benchmark
+    public boolean validateWrongApiKey() {
+        return apiKeyService.validateApiKey(wrongKey, storedHash);
+    }
+
+    @Benchmark
+    public VerifiedAgent cachedCredentials() {
+        return credentialCache.get(AGENT_ID, apiKey);
+    }
+}
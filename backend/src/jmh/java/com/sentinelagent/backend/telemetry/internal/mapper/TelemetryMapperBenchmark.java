@@ -0,0 +1,87 @@
+package com.sentinelagent.backend.telemetry.internal.mapper;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.messaging.TelemetryKafkaMessage;
+import com.sentinelagent.backend.telemetry.internal.messaging.TelemetryPayloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The conversions a decoded message goes through on ingest, one at a time and end to end. Run with
+ * {@code -prof gc} to see the bytes allocated per message next to the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TelemetryMapperBenchmark {
+
+    private static final String REPORT_ID = "652f1c0e9b1e8a3d4c5b6a79";
+
+    /** Processes and connections per message. */
+    @Param({"50", "150", "500"})
+    public int rows;
+
+    private final TelemetryMapper mapper = new TelemetryMapper();
+    private final TelemetryStringInterner interner = new TelemetryStringInterner(100_000);
+    private TelemetryKafkaMessage message;
+    private TelemetryData data;
+    private MetricReportDocument document;
+    private TelemetryResponse response;
+
+    @Setup
+    public void setUp() {
+        message = TelemetryPayloads.message(rows, rows);
+        data = message.toTelemetryData();
+        interner.internStrings(data);
+        document = mapper.toDocument(data);
+        document.setId(REPORT_ID);
+        response = mapper.toResponse(document);
+    }
+
+    @Benchmark
+    public TelemetryData toTelemetryData() {
+        return message.toTelemetryData();
+    }
+
+    @Benchmark
+    public MetricReportDocument toDocument() {
+        return mapper.toDocument(data);
+    }
+
+    @Benchmark
+    public TelemetryResponse toResponse() {
+        return mapper.toResponse(document);
+    }
+
+    @Benchmark
+    public TelemetryReceivedEvent toEvent() {
+        return mapper.toEvent(REPORT_ID, response);
+    }
+
+    /** Everything {@code processAndSaveTelemetry} does to a message apart from the database and the caches. */
+    @Benchmark
+    public TelemetryReceivedEvent ingest() {
+        TelemetryData decoded = message.toTelemetryData();
+        interner.internStrings(decoded);
+        MetricReportDocument stored = mapper.toDocument(decoded);
+        stored.setId(REPORT_ID);
+        return mapper.toEvent(stored.getId(), mapper.toResponse(stored));
+    }
+}
@@ -0,0 +1,68 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one telemetry record through {@link TelemetryMessageDeserializer}, as the consumers do, in the
+ * JSON format the Go agent sends and in the binary format. The setup prints the bytes per message in each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TelemetryDeserializationBenchmark {
+
+    /** Processes and connections per message. */
+    @Param({"50", "150", "500"})
+    public int rows;
+
+    private TelemetryMessageDeserializer deserializer;
+    private byte[] json;
+    private byte[] binary;
+    private RecordHeaders jsonHeaders;
+    private RecordHeaders binaryHeaders;
+
+    @Setup
+    public void setUp() {
+        TelemetryKafkaMessage message = TelemetryPayloads.message(rows, rows);
+        json = TelemetryPayloads.json(message);
+        binary = TelemetryBinaryCodec.encode(message);
+        deserializer = TelemetryPayloads.deserializer();
+        jsonHeaders = new RecordHeaders();
+        binaryHeaders = new RecordHeaders();
+        binaryHeaders.add(TelemetryBinaryCodec.FORMAT_HEADER, TelemetryBinaryCodec.BINARY_FORMAT.getBytes(StandardCharsets.UTF_8));
+        System.out.printf("%n%d rows: JSON %,d B, binary %,d B%n", rows, json.length, binary.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        deserializer.close();
+    }
+
+    @Benchmark
+    public TelemetryKafkaMessage json() {
+        return deserializer.deserialize(TelemetryPayloads.TOPIC, jsonHeaders, json);
+    }
+
+    @Benchmark
+    public TelemetryKafkaMessage binary() {
+        return deserializer.deserialize(TelemetryPayloads.TOPIC, binaryHeaders, binary);
+    }
+}
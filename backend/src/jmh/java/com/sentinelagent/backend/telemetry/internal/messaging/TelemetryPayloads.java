@@ -0,0 +1,78 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark inputs shaped like a Linux host's report: a handful of well-known daemons followed by
+ * numbered workers, owned by a few users, and connections from those processes to a spread of remote
+ * addresses. The same seed always gives the same message.
+ */
+public final class TelemetryPayloads {
+
+    public static final String TOPIC = "agent-data";
+
+    private static final String[] USERS = {"root", "www-data", "postgres", "sentinel", "systemd-network", "nobody"};
+    private static final String[] STATES = {"ESTABLISHED", "LISTEN", "TIME_WAIT", "CLOSE_WAIT"};
+    private static final String[] COMMON_PROCESSES = {"systemd", "sshd", "cron", "rsyslogd", "containerd", "dockerd",
+            "nginx", "java", "postgres", "node", "python3", "bash", "kworker/0:1", "journald", "snapd", "chronyd"};
+
+    private TelemetryPayloads() {
+    }
+
+    public static TelemetryKafkaMessage message(int processCount, int connectionCount) {
+        Random random = new Random(processCount * 31L + connectionCount);
+
+        TelemetryData.ProcessData[] processes = new TelemetryData.ProcessData[processCount];
+        for (int i = 0; i < processCount; i++) {
+            String name = i < COMMON_PROCESSES.length ? COMMON_PROCESSES[i] : "worker-" + random.nextInt(40);
+            processes[i] = new TelemetryData.ProcessData(1000 + i, name, random.nextDouble() * 10,
+                    USERS[random.nextInt(USERS.length)]);
+        }
+        TelemetryData.NetworkConnectionData[] connections = new TelemetryData.NetworkConnectionData[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            TelemetryData.ProcessData owner = processes[random.nextInt(Math.min(processCount, 20))];
+            connections[i] = new TelemetryData.NetworkConnectionData(owner.getPid(), owner.getName(), "10.0.4.17",
+                    30000 + i, "203.0.113." + random.nextInt(200), random.nextBoolean() ? 443 : 5432,
+                    STATES[random.nextInt(STATES.length)]);
+        }
+
+        TelemetryKafkaMessage message = new TelemetryKafkaMessage();
+        message.setAgentId("8f14e45f-ceea-467f-a8ad-1b9c3a3c2d5e");
+        message.setApiKey("snt_Jx3Vd0yQm8kqGvH2bZc7aP1sRtLw9eNfUoKiYhXjM4E");
+        message.setHostname("web-01.prod.internal");
+        message.setCpuUsage(42.5);
+        message.setRamUsedPercent(63.2);
+        message.setRamTotalMb(16_384);
+        message.setDiskUsedPercent(71.4);
+        message.setDiskTotalGb(512);
+        message.setBytesSentSec(1_250_000);
+        message.setBytesRecvSec(2_730_000);
+        message.setSequence(7L);
+        message.setTimestamp(Instant.parse("2026-10-18T09:00:00Z"));
+        message.setProcesses(processes);
+        message.setNetworkConnections(connections);
+        return message;
+    }
+
+    /** The message as the Go agent publishes it: JSON without type headers. */
+    public static byte[] json(TelemetryKafkaMessage message) {
+        try (JsonSerializer<TelemetryKafkaMessage> serializer = new JsonSerializer<>()) {
+            serializer.setAddTypeInfo(false);
+            return serializer.serialize(TOPIC, message);
+        }
+    }
+
+    /** A deserializer configured like the consumers in application.properties. */
+    public static TelemetryMessageDeserializer deserializer() {
+        TelemetryMessageDeserializer deserializer = new TelemetryMessageDeserializer();
+        deserializer.configure(Map.of(
+                "spring.json.value.default.type", TelemetryKafkaMessage.class.getName(),
+                "spring.json.trusted.packages", "*"), false);
+        return deserializer;
+    }
+}
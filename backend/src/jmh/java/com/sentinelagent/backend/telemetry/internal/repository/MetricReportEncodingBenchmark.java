@@ -0,0 +1,99 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryMapper;
+import com.sentinelagent.backend.telemetry.internal.messaging.TelemetryPayloads;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Writing one report to BSON in the plain layout and in the dictionary-encoded one, without a database. The
+ * setup prints the bytes per report for both layouts, raw and deflated as a rough stand-in for WiredTiger
+ * block compression.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricReportEncodingBenchmark {
+
+    private static final String COLLECTION = "agent_reports";
+
+    /** Processes and connections per report. */
+    @Param({"50", "150", "500"})
+    public int rows;
+
+    private final MetricReportDictionaryEncoding encoding = new MetricReportDictionaryEncoding(true);
+    private MappingMongoConverter converter;
+    private MetricReportDocument document;
+
+    @Setup
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        document = new TelemetryMapper().toDocument(TelemetryPayloads.message(rows, rows).toTelemetryData());
+
+        byte[] plain = plain();
+        byte[] encoded = dictionary();
+        System.out.printf("%n%d rows: plain %,d B (deflated %,d B), dictionary %,d B (deflated %,d B)%n", rows,
+                plain.length, deflatedLength(plain), encoded.length, deflatedLength(encoded));
+    }
+
+    @Benchmark
+    public byte[] plain() {
+        return bson(document);
+    }
+
+    /** Includes building the string table, which the callback does on every insert. */
+    @Benchmark
+    public byte[] dictionary() {
+        return bson(encoding.onBeforeConvert(document, COLLECTION));
+    }
+
+    private byte[] bson(MetricReportDocument report) {
+        Document target = new Document();
+        converter.write(report, target);
+        RawBsonDocument raw = new RawBsonDocument(target, new DocumentCodec());
+        byte[] bytes = new byte[raw.getByteBuffer().remaining()];
+        raw.getByteBuffer().get(bytes);
+        return bytes;
+    }
+
+    private static int deflatedLength(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] buffer = new byte[input.length + 64];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return length;
+    }
+}
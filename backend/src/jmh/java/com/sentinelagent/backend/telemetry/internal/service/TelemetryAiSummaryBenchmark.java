@@ -0,0 +1,66 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryAiSummaryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricWindowSummary;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The AI summary of an agent's last 15 minutes: {@link TelemetryMapper#toAiSummary} on its own, and
+ * together with the in-memory window it is usually built from.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TelemetryAiSummaryBenchmark {
+
+    private static final String AGENT_ID = "8f14e45f-ceea-467f-a8ad-1b9c3a3c2d5e";
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 10, 18, 9, 0);
+    private static final LocalDateTime TO = FROM.plusMinutes(15);
+
+    private final TelemetryMapper mapper = new TelemetryMapper();
+    private final RecentMetricsStore recentMetrics = new RecentMetricsStore(360, 1 << 20, new SimpleMeterRegistry());
+    private Optional<MetricWindowSummary> window;
+
+    @Setup
+    public void setUp() {
+        // One sample every 10 seconds, as the agent sends them
+        Random random = new Random(1);
+        for (LocalDateTime at = FROM; at.isBefore(TO); at = at.plusSeconds(10)) {
+            recentMetrics.record(new TelemetryResponse(AGENT_ID, "web-01", 20 + random.nextDouble() * 60,
+                    55 + random.nextDouble() * 10, 16_384, 71.4, 512, 1_000_000 + random.nextInt(500_000),
+                    2_500_000 + random.nextInt(500_000), List.of(), List.of(), at));
+        }
+        window = recentMetrics.summarize(AGENT_ID, FROM, TO);
+    }
+
+    @Benchmark
+    public TelemetryAiSummaryResponse toAiSummary() {
+        return mapper.toAiSummary(AGENT_ID, window);
+    }
+
+    @Benchmark
+    public TelemetryAiSummaryResponse summarizeRecentWindow() {
+        return mapper.toAiSummary(AGENT_ID, recentMetrics.summarize(AGENT_ID, FROM, TO));
+    }
+}
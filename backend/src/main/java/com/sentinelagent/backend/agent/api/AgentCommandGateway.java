@@ -0,0 +1,43 @@
+package com.sentinelagent.backend.agent.api;
+
+import com.sentinelagent.backend.agent.internal.domain.AgentCommandDocument;
+import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentCommandRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lets other modules queue commands for an agent; the agent picks them up on its next command poll.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AgentCommandGateway {
+
+    public static final String FULL_SNAPSHOT = "FULL_SNAPSHOT";
+
+    private static final String PENDING = "PENDING";
+
+    private final SpringDataAgentCommandRepository commandRepository;
+
+    /**
+     * Asks the agent to send its complete process and connection lists with the next sample.
+     * Does nothing if such a request is already waiting.
+     */
+    public void requestFullSnapshot(String agentId) {
+        if (commandRepository.existsByAgentIdAndCommandAndStatus(agentId, FULL_SNAPSHOT, PENDING)) {
+            return;
+        }
+
+        commandRepository.save(AgentCommandDocument.builder()
+                .agentId(agentId)
+                .command(FULL_SNAPSHOT)
+                .parameters("{}")
+                .status(PENDING)
+                .issuedAt(LocalDateTime.now())
+                .build());
+        log.info("Requested full telemetry snapshot from agent {}", agentId);
+    }
+}
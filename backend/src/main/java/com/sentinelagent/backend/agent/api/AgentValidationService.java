@@ -1,9 +1,10 @@
 package com.sentinelagent.backend.agent.api;
 
-import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
+import com.sentinelagent.backend.agent.AgentNotFoundException;
 import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
-import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
-import com.sentinelagent.backend.agent.internal.security.ApiKeyService;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialVerifier;
+import com.sentinelagent.backend.agent.internal.security.VerifiedAgent;
+import com.sentinelagent.backend.agent.internal.service.AgentHeartbeatBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -15,8 +16,8 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class AgentValidationService {
 
-    private final SpringDataAgentRepository agentRepository;
-    private final ApiKeyService apiKeyService;
+    private final AgentCredentialVerifier credentialVerifier;
+    private final AgentHeartbeatBuffer heartbeatBuffer;
 
     public AgentValidationResult validate(String agentId, String apiKey) {
         if (agentId == null || agentId.isBlank()) {
@@ -24,30 +25,22 @@ public class AgentValidationService {
             return null;
         }
 
-        AgentDocument agent = agentRepository.findById(agentId).orElse(null);
-        if (agent == null) {
+        VerifiedAgent agent;
+        try {
+            agent = credentialVerifier.verify(agentId, apiKey);
+        } catch (AgentNotFoundException ex) {
             log.warn("Telemetry from unknown agent: {}", agentId);
             return null;
         }
 
-        if (!apiKeyService.validateApiKey(apiKey, agent.getApiKeyHash())) {
-            log.warn("Invalid API key for agent: {}", agentId);
-            throw new InvalidAgentCredentialsException();
+        boolean inactive = AgentStatus.INACTIVE.name().equalsIgnoreCase(agent.status());
+        heartbeatBuffer.record(agentId, LocalDateTime.now(), inactive);
+        if (inactive) {
+            credentialVerifier.markReactivated(agentId);
         }
 
-        if (AgentStatus.REVOKED.name().equalsIgnoreCase(agent.getStatus())) {
-            log.warn("Telemetry from revoked agent: {}", agentId);
-            throw new InvalidAgentCredentialsException("Agent has been revoked");
-        }
-
-        agent.setLastHeartbeat(LocalDateTime.now());
-        if (AgentStatus.INACTIVE.name().equalsIgnoreCase(agent.getStatus())) {
-            agent.setStatus(AgentStatus.ACTIVE.name());
-        }
-        agentRepository.save(agent);
-
         log.debug("Agent validated: {}", agentId);
-        return new AgentValidationResult(agentId, agent.getHostname(), true);
+        return new AgentValidationResult(agentId, agent.hostname(), true);
     }
 
     public record AgentValidationResult(String agentId, String hostname, boolean authenticated) {
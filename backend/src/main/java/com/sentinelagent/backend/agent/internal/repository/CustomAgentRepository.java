@@ -0,0 +1,20 @@
+package com.sentinelagent.backend.agent.internal.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface CustomAgentRepository {
+
+    /**
+     * Writes all heartbeats in one unordered bulk update without loading the agents. Each update also moves
+     * an INACTIVE agent back to ACTIVE; other statuses are left as they are.
+     */
+    void updateHeartbeats(Collection<HeartbeatUpdate> updates);
+
+    /**
+     * New {@code lastHeartbeat} for an agent; {@code reactivate} marks an agent last seen INACTIVE, whose update
+     * is written ahead of the regular flush.
+     */
+    record HeartbeatUpdate(String agentId, LocalDateTime heartbeat, boolean reactivate) {
+    }
+}
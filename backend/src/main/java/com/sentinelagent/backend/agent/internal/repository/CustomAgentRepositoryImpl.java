@@ -0,0 +1,45 @@
+package com.sentinelagent.backend.agent.internal.repository;
+
+import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
+import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class CustomAgentRepositoryImpl implements CustomAgentRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void updateHeartbeats(Collection<HeartbeatUpdate> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AgentDocument.class);
+        for (HeartbeatUpdate heartbeat : updates) {
+            bulk.updateOne(Query.query(Criteria.where("_id").is(heartbeat.agentId())), toUpdate(heartbeat));
+        }
+        bulk.execute();
+    }
+
+    // Always decide the INACTIVE -> ACTIVE transition in the database: the status the caller saw may come from
+    // cached credentials, so it can neither be trusted to skip a reactivation nor to undo a revocation.
+    private UpdateDefinition toUpdate(HeartbeatUpdate heartbeat) {
+        return AggregationUpdate.update()
+                .set("lastHeartbeat").toValue(heartbeat.heartbeat())
+                .set("status").toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf("status").equalToValue(AgentStatus.INACTIVE.name()))
+                        .then(AgentStatus.ACTIVE.name())
+                        .otherwiseValueOf("status"));
+    }
+}
@@ -10,4 +10,5 @@ import java.util.List;
 public interface SpringDataAgentCommandRepository extends MongoRepository<AgentCommandDocument, String> {
     List<AgentCommandDocument> findByAgentIdOrderByIssuedAtDesc(String agentId);
     List<AgentCommandDocument> findByAgentIdAndStatusOrderByIssuedAtAsc(String agentId, String status);
+    boolean existsByAgentIdAndCommandAndStatus(String agentId, String command, String status);
 }
@@ -10,7 +10,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SpringDataAgentRepository extends MongoRepository<AgentDocument, String> {
+public interface SpringDataAgentRepository extends MongoRepository<AgentDocument, String>, CustomAgentRepository {
 
     boolean existsByHostname(String hostname);
 
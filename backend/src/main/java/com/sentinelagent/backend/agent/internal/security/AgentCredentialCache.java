@@ -0,0 +1,119 @@
+package com.sentinelagent.backend.agent.internal.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers agent credentials that already passed the BCrypt check, keyed by agent id and a SHA-256
+ * digest of the presented key, so repeated requests from the same agent skip both the hash and the lookup.
+ *
+ * <p>An entry answers on its own for the status-check interval only. After that {@link #get} misses and the
+ * verifier re-reads the agent, so a revocation or status change written outside this application (another
+ * instance, a script, a direct database update) is seen within that interval; the BCrypt check is skipped
+ * when the stored hash is still the one the key was verified against.
+ *
+ * <p>Every invalidation bumps a generation counter. A verification reads it before loading the agent and
+ * only caches its result if no invalidation happened since, so an agent revoked while its key was being
+ * checked is not cached as still valid.
+ */
+@Component
+public class AgentCredentialCache {
+
+    private final Cache<String, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final long statusCheckNanos;
+
+    public AgentCredentialCache(@Value("${agent.credentials.cache.ttl-seconds}") long ttlSeconds,
+                                @Value("${agent.credentials.cache.status-check-seconds}") long statusCheckSeconds,
+                                @Value("${agent.credentials.cache.max-size}") long maxSize) {
+        this.statusCheckNanos = Duration.ofSeconds(statusCheckSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /** Cached credentials, or null when there are none for this key or their status check is due. */
+    public VerifiedAgent get(String agentId, String apiKey) {
+        Entry entry = matching(agentId, apiKey);
+        if (entry == null || System.nanoTime() - entry.checkedAt() >= statusCheckNanos) {
+            return null;
+        }
+        return entry.agent();
+    }
+
+    /** Stored hash this key was last verified against, or null if it has no entry. */
+    public String verifiedKeyHash(String agentId, String apiKey) {
+        Entry entry = matching(agentId, apiKey);
+        return entry == null ? null : entry.apiKeyHash();
+    }
+
+    /** Current invalidation generation, to pass to {@link #put} once the credentials are verified. */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches verified credentials unless an invalidation happened after {@code observedGeneration} was
+     * read. The check runs under the entry's lock, which {@link #invalidate} takes after bumping the
+     * generation, so a concurrent revocation either removes the entry or keeps it from being written.
+     */
+    public void put(String apiKey, String apiKeyHash, VerifiedAgent agent, long observedGeneration) {
+        Entry entry = new Entry(digest(apiKey), apiKeyHash, agent, System.nanoTime());
+        cache.asMap().compute(agent.agentId(),
+                (id, current) -> generation.get() == observedGeneration ? entry : current);
+    }
+
+    public void markActive(String agentId) {
+        cache.asMap().computeIfPresent(agentId, (id, entry) -> new Entry(entry.keyDigest(), entry.apiKeyHash(),
+                new VerifiedAgent(id, entry.agent().hostname(), AgentStatus.ACTIVE.name()), entry.checkedAt()));
+    }
+
+    /** Drops the entry unless the saved agent still has the cached key hash and status. */
+    public void invalidateIfChanged(String agentId, String apiKeyHash, String status) {
+        generation.incrementAndGet();
+        cache.asMap().computeIfPresent(agentId, (id, entry) -> entry.apiKeyHash().equals(apiKeyHash)
+                && status != null && status.equalsIgnoreCase(entry.agent().status()) ? entry : null);
+    }
+
+    public void invalidate(String agentId) {
+        generation.incrementAndGet();
+        cache.invalidate(agentId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private Entry matching(String agentId, String apiKey) {
+        if (agentId == null || apiKey == null) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(agentId);
+        if (entry == null || !MessageDigest.isEqual(entry.keyDigest(), digest(apiKey))) {
+            return null;
+        }
+        return entry;
+    }
+
+    private static byte[] digest(String apiKey) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private record Entry(byte[] keyDigest, String apiKeyHash, VerifiedAgent agent, long checkedAt) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.sentinelagent.backend.agent.internal.security;
+
+import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
+import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached credentials when an agent saved or deleted through this application is revoked, changes
+ * status, gets a new key or is removed. Writes made elsewhere never reach this listener; the cache's status
+ * check picks those up.
+ */
+@Component
+@RequiredArgsConstructor
+public class AgentCredentialCacheInvalidator extends AbstractMongoEventListener<AgentDocument> {
+
+    private final AgentCredentialCache credentialCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<AgentDocument> event) {
+        AgentDocument agent = event.getSource();
+        if (AgentStatus.REVOKED.name().equalsIgnoreCase(agent.getStatus()) || agent.getApiKeyHash() == null) {
+            credentialCache.invalidate(agent.getId());
+        } else {
+            credentialCache.invalidateIfChanged(agent.getId(), agent.getApiKeyHash(), agent.getStatus());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<AgentDocument> event) {
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            credentialCache.invalidate(id.toString());
+        } else {
+            credentialCache.invalidateAll();
+        }
+    }
+}
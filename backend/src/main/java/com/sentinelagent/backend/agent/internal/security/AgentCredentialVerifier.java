@@ -0,0 +1,57 @@
+package com.sentinelagent.backend.agent.internal.security;
+
+import com.sentinelagent.backend.agent.AgentNotFoundException;
+import com.sentinelagent.backend.agent.api.InvalidAgentCredentialsException;
+import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
+import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
+import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single credential check shared by telemetry, heartbeat and command polling.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentCredentialVerifier {
+
+    private final SpringDataAgentRepository agentRepository;
+    private final ApiKeyService apiKeyService;
+    private final AgentCredentialCache credentialCache;
+
+    public VerifiedAgent verify(String agentId, String apiKey) {
+        VerifiedAgent cached = credentialCache.get(agentId, apiKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = credentialCache.generation();
+        // A key already verified against the hash that is still stored only needs its status re-read
+        String verifiedHash = credentialCache.verifiedKeyHash(agentId, apiKey);
+        AgentDocument agent = agentRepository.findById(agentId)
+                .orElseThrow(() -> new AgentNotFoundException(agentId));
+
+        boolean keyValid = verifiedHash != null && verifiedHash.equals(agent.getApiKeyHash())
+                || apiKeyService.validateApiKey(apiKey, agent.getApiKeyHash());
+        if (!keyValid) {
+            log.warn("Invalid API key for agent: {}", agentId);
+            throw new InvalidAgentCredentialsException();
+        }
+
+        if (AgentStatus.REVOKED.name().equalsIgnoreCase(agent.getStatus())) {
+            log.warn("Credentials presented by revoked agent: {}", agentId);
+            credentialCache.invalidate(agentId);
+            throw new InvalidAgentCredentialsException("Agent has been revoked");
+        }
+
+        VerifiedAgent verified = new VerifiedAgent(agent.getId(), agent.getHostname(), agent.getStatus());
+        credentialCache.put(apiKey, agent.getApiKeyHash(), verified, generation);
+        return verified;
+    }
+
+    public void markReactivated(String agentId) {
+        credentialCache.markActive(agentId);
+    }
+}
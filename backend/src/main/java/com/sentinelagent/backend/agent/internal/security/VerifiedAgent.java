@@ -0,0 +1,7 @@
+package com.sentinelagent.backend.agent.internal.security;
+
+/**
+ * An agent whose API key has been checked, as of the last time it was read from the store.
+ */
+public record VerifiedAgent(String agentId, String hostname, String status) {
+}
@@ -6,10 +6,9 @@ import com.sentinelagent.backend.agent.dto.AgentCommandResultRequest;
 import com.sentinelagent.backend.agent.dto.SendCommandRequest;
 import com.sentinelagent.backend.agent.internal.domain.AgentCommandDocument;
 import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
-import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
 import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentCommandRepository;
 import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
-import com.sentinelagent.backend.agent.internal.security.ApiKeyService;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialVerifier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -24,7 +23,8 @@ public class AgentCommandServiceImpl implements AgentCommandService {
 
     private final SpringDataAgentRepository agentRepository;
     private final SpringDataAgentCommandRepository commandRepository;
-    private final ApiKeyService apiKeyService;
+    private final AgentCredentialVerifier credentialVerifier;
+    private final AgentHeartbeatBuffer heartbeatBuffer;
 
     @Override
     public void issueCommand(String agentId, SendCommandRequest request) {
@@ -73,20 +73,8 @@ public class AgentCommandServiceImpl implements AgentCommandService {
     }
 
     private void validateAgentCredentials(String agentId, String apiKey) {
-        AgentDocument agent = agentRepository.findById(agentId)
-                .orElseThrow(() -> new AgentNotFoundException(agentId));
-
-        if (!apiKeyService.validateApiKey(apiKey, agent.getApiKeyHash())) {
-            log.warn("Invalid API key for command dispatch. agentId={}", agentId);
-            throw new InvalidAgentCredentialsException();
-        }
-
-        if (AgentStatus.REVOKED.name().equalsIgnoreCase(agent.getStatus())) {
-            throw new InvalidAgentCredentialsException("Agent has been revoked");
-        }
-
-        agent.setLastHeartbeat(LocalDateTime.now());
-        agentRepository.save(agent);
+        credentialVerifier.verify(agentId, apiKey);
+        heartbeatBuffer.record(agentId, LocalDateTime.now(), false);
     }
 
     private String normalizeStatus(String status) {
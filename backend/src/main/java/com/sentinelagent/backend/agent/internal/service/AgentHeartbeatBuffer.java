@@ -0,0 +1,104 @@
+package com.sentinelagent.backend.agent.internal.service;
+
+import com.sentinelagent.backend.agent.internal.repository.CustomAgentRepository.HeartbeatUpdate;
+import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for agent heartbeats. Keeps only the newest heartbeat per agent and writes them
+ * as one bulk update every flush interval; every write also reactivates an INACTIVE agent. Heartbeats from
+ * agents known to be INACTIVE are written within the shorter status delay so an agent coming back does not
+ * stay INACTIVE for a whole interval; one whose credentials were cached before it went INACTIVE is
+ * reactivated by the regular flush instead. After a failed write
+ * the updates are kept and the next attempt waits a full flush interval, so an unavailable database is
+ * not retried every second.
+ */
+@Slf4j
+@Component
+public class AgentHeartbeatBuffer {
+
+    private final SpringDataAgentRepository agentRepository;
+    private final long flushIntervalMs;
+    private final Counter flushFailures;
+    private final Map<String, HeartbeatUpdate> pending = new ConcurrentHashMap<>();
+    private volatile long lastFullFlush = System.currentTimeMillis();
+    private volatile long retryNotBefore;
+
+    public AgentHeartbeatBuffer(SpringDataAgentRepository agentRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${agent.heartbeat.flush-interval-ms}") long flushIntervalMs) {
+        this.agentRepository = agentRepository;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushFailures = Counter.builder("agent.heartbeat.flush.failures")
+                .description("Heartbeat bulk updates that failed and were kept for a later attempt")
+                .register(meterRegistry);
+    }
+
+    public void record(String agentId, LocalDateTime heartbeat, boolean reactivate) {
+        pending.merge(agentId, new HeartbeatUpdate(agentId, heartbeat, reactivate), AgentHeartbeatBuffer::merge);
+    }
+
+    @Scheduled(fixedDelayString = "${agent.heartbeat.status-max-delay-ms}")
+    public void flushDue() {
+        long now = System.currentTimeMillis();
+        if (now < retryNotBefore) {
+            return;
+        }
+        boolean full = now - lastFullFlush >= flushIntervalMs;
+        if (full) {
+            lastFullFlush = now;
+        }
+        flush(full);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(true);
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private void flush(boolean includeAll) {
+        List<HeartbeatUpdate> batch = new ArrayList<>();
+        for (Map.Entry<String, HeartbeatUpdate> entry : pending.entrySet()) {
+            HeartbeatUpdate update = entry.getValue();
+            // remove(key, value) leaves the entry in place if a newer heartbeat arrived meanwhile
+            if ((includeAll || update.reactivate()) && pending.remove(entry.getKey(), update)) {
+                batch.add(update);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            agentRepository.updateHeartbeats(batch);
+            retryNotBefore = 0;
+            log.debug("Flushed {} agent heartbeats", batch.size());
+        } catch (Exception ex) {
+            flushFailures.increment();
+            retryNotBefore = System.currentTimeMillis() + flushIntervalMs;
+            log.warn("Heartbeat flush failed, retrying {} updates in {} ms: {}", batch.size(), flushIntervalMs, ex.getMessage());
+            batch.forEach(update -> pending.merge(update.agentId(), update, AgentHeartbeatBuffer::merge));
+        }
+    }
+
+    private static HeartbeatUpdate merge(HeartbeatUpdate current, HeartbeatUpdate incoming) {
+        LocalDateTime newest = incoming.heartbeat().isAfter(current.heartbeat()) ? incoming.heartbeat() : current.heartbeat();
+        return new HeartbeatUpdate(current.agentId(), newest, current.reactivate() || incoming.reactivate());
+    }
+}
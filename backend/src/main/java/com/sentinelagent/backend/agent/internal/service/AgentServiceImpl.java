@@ -2,7 +2,6 @@ package com.sentinelagent.backend.agent.internal.service;
 
 import com.sentinelagent.backend.agent.AgentAlreadyExistsException;
 import com.sentinelagent.backend.agent.AgentNotFoundException;
-import com.sentinelagent.backend.agent.api.InvalidAgentCredentialsException;
 import com.sentinelagent.backend.agent.dto.AgentDetailsDto;
 import com.sentinelagent.backend.agent.dto.AgentRegistrationRequest;
 import com.sentinelagent.backend.agent.dto.AgentRegistrationResponse;
@@ -11,7 +10,9 @@ import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
 import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
 import com.sentinelagent.backend.agent.internal.mapper.AgentMapper;
 import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialVerifier;
 import com.sentinelagent.backend.agent.internal.security.ApiKeyService;
+import com.sentinelagent.backend.agent.internal.security.VerifiedAgent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,8 @@ public class AgentServiceImpl implements AgentService {
     private final SpringDataAgentRepository agentRepository;
     private final ApiKeyService apiKeyService;
     private final AgentMapper mapper;
+    private final AgentCredentialVerifier credentialVerifier;
+    private final AgentHeartbeatBuffer heartbeatBuffer;
 
     @Override
     public AgentRegistrationResponse registerAgent(AgentRegistrationRequest request) {
@@ -65,26 +68,16 @@ public class AgentServiceImpl implements AgentService {
     public void processHeartbeat(String apiKey, HeartbeatRequest request) {
         log.debug("Processing heartbeat for agent: {}", request.getAgentId());
 
-        AgentDocument agent = agentRepository.findById(request.getAgentId())
-                .orElseThrow(() -> new AgentNotFoundException(request.getAgentId()));
+        VerifiedAgent agent = credentialVerifier.verify(request.getAgentId(), apiKey);
 
-        if (!apiKeyService.validateApiKey(apiKey, agent.getApiKeyHash())) {
-            log.warn("Invalid API key for agent: {}", request.getAgentId());
-            throw new InvalidAgentCredentialsException();
+        boolean inactive = AgentStatus.INACTIVE.name().equalsIgnoreCase(agent.status());
+        heartbeatBuffer.record(agent.agentId(), LocalDateTime.now(), inactive);
+        if (inactive) {
+            credentialVerifier.markReactivated(agent.agentId());
+            log.info("Agent reactivated: {}", agent.agentId());
         }
 
-        if (AgentStatus.REVOKED.name().equalsIgnoreCase(agent.getStatus())) {
-            throw new InvalidAgentCredentialsException("Agent has been revoked");
-        }
-
-        agent.setLastHeartbeat(LocalDateTime.now());
-        if (AgentStatus.INACTIVE.name().equalsIgnoreCase(agent.getStatus())) {
-            agent.setStatus(AgentStatus.ACTIVE.name());
-            log.info("Agent reactivated: {}", agent.getId());
-        }
-
-        agentRepository.save(agent);
-        log.debug("Heartbeat processed for agent: {}", agent.getId());
+        log.debug("Heartbeat processed for agent: {}", agent.agentId());
     }
 
     @Override
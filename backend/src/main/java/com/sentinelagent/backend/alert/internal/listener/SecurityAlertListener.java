@@ -3,21 +3,32 @@ package com.sentinelagent.backend.alert.internal.listener;
 import com.sentinelagent.backend.alert.internal.domain.AlertDocument;
 import com.sentinelagent.backend.alert.internal.service.AlertService;
 import com.sentinelagent.backend.securityanalysis.event.SecurityAlertGeneratedEvent;
+import com.sentinelagent.backend.shared.metrics.OutcomeTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
-import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Component;
 
+import java.util.Locale;
+import java.util.Set;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SecurityAlertListener {
 
+    // Severity comes from the model's answer; anything unexpected is counted together
+    private static final Set<String> SEVERITIES = Set.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+
     private final AlertService alertService;
+    private final MeterRegistry meterRegistry;
 
-    @ApplicationModuleListener
-    @EventListener // fallback to plain Spring events to ensure handling
+    // A plain listener: alerts are published from the analysis workers outside any transaction, where a
+    // transactional module listener would not run once transaction management is enabled
+    @EventListener
     public void onSecurityAlertGenerated(SecurityAlertGeneratedEvent event) {
         log.info("🔴 Received SecurityAlertGeneratedEvent for agent: {}", event.agentId());
 
@@ -31,7 +42,17 @@ public class SecurityAlertListener {
                 .timestamp(event.timestamp())
                 .build();
 
-        alertService.save(alert);
+        OutcomeTimer.record(meterRegistry, "security.alerts.save", Tags.empty(), () -> alertService.save(alert));
+        Counter.builder("security.alerts")
+                .description("Security alerts stored, by severity")
+                .tag("severity", severityTag(event.severity()))
+                .register(meterRegistry)
+                .increment();
         log.info("💾 Alert saved to database with ID: {}", alert.getId());
     }
+
+    private static String severityTag(String severity) {
+        String normalized = severity != null ? severity.trim().toUpperCase(Locale.ROOT) : "";
+        return SEVERITIES.contains(normalized) ? normalized : "OTHER";
+    }
 }
@@ -52,6 +52,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/v1/agents/*/commands/pending").permitAll()
                         .requestMatchers(HttpMethod.PUT, "/api/v1/agents/*/commands/*/result").permitAll()
                         .requestMatchers("/api/v1/agents/**").authenticated()
+                        // Scraped by Prometheus and probed by the orchestrator, neither of which holds a JWT;
+                        // health only reports its status and the other actuator endpoints stay authenticated
+                        .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authenticationProvider(authenticationProvider())
@@ -3,7 +3,10 @@ package com.sentinelagent.backend.report.internal.service;
 import com.sentinelagent.backend.alert.api.AlertFacade;
 import com.sentinelagent.backend.report.internal.domain.ReportDocument;
 import com.sentinelagent.backend.report.internal.repository.SpringDataReportRepository;
+import com.sentinelagent.backend.shared.metrics.OutcomeTimer;
 import com.sentinelagent.backend.telemetry.api.TelemetryFacade;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
@@ -19,11 +22,13 @@ import java.util.concurrent.CompletableFuture;
 public class ReportServiceImpl implements ReportService {
 
     private static final String FALLBACK_SUMMARY = "AI analysis is currently unavailable. Review telemetry and alerts manually for this period.";
+    private static final Tags LLM_CALLER = Tags.of("caller", "report");
 
     private final TelemetryFacade telemetryService;
     private final AlertFacade alertFacade;
     private final SpringDataReportRepository reportRepo;
     private final ChatModel chatModel;
+    private final MeterRegistry meterRegistry;
 
     @Override
     public ReportDocument generateReport(String agentId, LocalDateTime from, LocalDateTime to, String reportType) {
@@ -60,7 +65,7 @@ public class ReportServiceImpl implements ReportService {
 
         String aiResponse;
         try {
-            aiResponse = chatModel.call(prompt);
+            aiResponse = OutcomeTimer.record(meterRegistry, "ai.chat.calls", LLM_CALLER, () -> chatModel.call(prompt));
             if (aiResponse == null || aiResponse.isBlank()) {
                 aiResponse = FALLBACK_SUMMARY;
             }
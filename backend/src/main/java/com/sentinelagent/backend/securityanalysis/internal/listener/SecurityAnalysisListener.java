@@ -2,29 +2,95 @@ package com.sentinelagent.backend.securityanalysis.internal.listener;
 
 import com.sentinelagent.backend.securityanalysis.event.SecurityAlertGeneratedEvent;
 import com.sentinelagent.backend.securityanalysis.internal.domain.AnalysisResult;
+import com.sentinelagent.backend.securityanalysis.internal.service.AnalysisIntakeQueue;
 import com.sentinelagent.backend.securityanalysis.internal.service.SecurityAnalysisService;
 import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.modulith.events.ApplicationModuleListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
+/**
+ * Feeds stored telemetry into the bounded {@link AnalysisIntakeQueue} on the publishing thread, and runs
+ * a fixed number of workers that take samples from it for LLM analysis. Workers start once the application
+ * is ready and stop taking samples when the context closes; the analysis in flight is given the worker
+ * pool's shutdown timeout to finish.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class SecurityAnalysisListener {
 
+    // How long an idle worker waits for a sample before checking whether it should stop
+    private static final Duration IDLE_POLL = Duration.ofSeconds(1);
+
     private final SecurityAnalysisService analysisService;
     private final ApplicationEventPublisher eventPublisher;
+    private final AnalysisIntakeQueue intakeQueue;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor workerExecutor;
+    private final int workerCount;
+    private volatile boolean running;
+
+    public SecurityAnalysisListener(SecurityAnalysisService analysisService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    AnalysisIntakeQueue intakeQueue,
+                                    MeterRegistry meterRegistry,
+                                    @Qualifier(SecurityAnalysisWorkerConfig.WORKER_EXECUTOR) ThreadPoolTaskExecutor workerExecutor,
+                                    @Value("${security.analysis.workers}") int workerCount) {
+        this.analysisService = analysisService;
+        this.eventPublisher = eventPublisher;
+        this.intakeQueue = intakeQueue;
+        this.meterRegistry = meterRegistry;
+        this.workerExecutor = workerExecutor;
+        this.workerCount = workerCount;
+    }
 
-    @Async
-    @ApplicationModuleListener
+    @EventListener
     public void onTelemetryReceived(TelemetryReceivedEvent event) {
-        log.debug("Received telemetry for security analysis asynchronously: {}", event.agentId());
+        if (!intakeQueue.offer(event)) {
+            log.debug("Analysis backlog full, shed telemetry of agent {}", event.agentId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startWorkers() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workerExecutor.execute(this::runWorker);
+        }
+    }
+
+    // Before the executor is stopped, so idle workers return and the pool only waits for busy ones
+    @EventListener(ContextClosedEvent.class)
+    void stopWorkers() {
+        running = false;
+    }
+
+    private void runWorker() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                TelemetryReceivedEvent event = intakeQueue.poll(IDLE_POLL);
+                if (event != null) {
+                    analyze(event);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void analyze(TelemetryReceivedEvent event) {
+        log.debug("Analyzing telemetry of agent {}", event.agentId());
 
         try {
             AnalysisResult aiResult = analysisService.analyzeTelemetry(event);
@@ -44,6 +110,11 @@ public class SecurityAnalysisListener {
             }
 
         } catch (Exception e) {
+            Counter.builder("security.analysis.failures")
+                    .description("Telemetry samples whose security analysis failed")
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
             log.error("❌ Security analysis failed for report: {} - {}", event.reportId(), e.getMessage());
         }
     }
@@ -53,4 +124,4 @@ public class SecurityAnalysisListener {
                 !riskLevel.equalsIgnoreCase("SAFE") &&
                 !riskLevel.equalsIgnoreCase("NONE");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.sentinelagent.backend.securityanalysis.internal.listener;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Threads for the analysis workers of {@link SecurityAnalysisListener}: one per worker and no queue, since
+ * the backlog lives in the intake queue. On shutdown the pool waits for analyses in flight.
+ */
+@Configuration
+public class SecurityAnalysisWorkerConfig {
+
+    public static final String WORKER_EXECUTOR = "securityAnalysisWorkerExecutor";
+
+    @Bean(WORKER_EXECUTOR)
+    public ThreadPoolTaskExecutor securityAnalysisWorkerExecutor(
+            @Value("${security.analysis.workers}") int workers,
+            @Value("${security.analysis.shutdown-timeout-seconds}") int shutdownTimeoutSeconds) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("security-analysis-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(shutdownTimeoutSeconds);
+        return executor;
+    }
+}
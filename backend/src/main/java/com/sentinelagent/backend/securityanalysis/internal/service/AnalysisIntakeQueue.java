@@ -0,0 +1,231 @@
+package com.sentinelagent.backend.securityanalysis.internal.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Bounded backlog between ingest and the LLM analysis workers. Ingest never waits: when an agent or the whole
+ * queue is at its limit, the oldest routine sample makes room, or the new sample is shed. Priority samples
+ * (high CPU, high upload or a public address not seen recently) are taken first and only give way to each other.
+ */
+@Component
+public class AnalysisIntakeQueue {
+
+    public enum ShedPolicy {
+        /** Each agent keeps up to the per-agent limit of pending samples, dropping its oldest. */
+        DROP_OLDEST,
+        /** Each agent keeps only its newest pending sample. */
+        LATEST_PER_AGENT
+    }
+
+    private final int capacity;
+    private final int perAgentLimit;
+    private final double priorityCpuPercent;
+    private final long priorityUploadBytesSec;
+    private final Cache<String, Boolean> knownAddresses;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Counter admitted;
+    private final Counter admittedPriority;
+    private final Counter shedAgentLimit;
+    private final Counter shedCapacity;
+
+    public AnalysisIntakeQueue(MeterRegistry meterRegistry,
+                               @Value("${security.analysis.queue.capacity}") int capacity,
+                               @Value("${security.analysis.queue.policy}") String policy,
+                               @Value("${security.analysis.queue.per-agent-limit}") int perAgentLimit,
+                               @Value("${security.analysis.queue.priority-cpu-percent}") double priorityCpuPercent,
+                               @Value("${security.analysis.queue.priority-upload-bytes-sec}") long priorityUploadBytesSec,
+                               @Value("${security.analysis.queue.known-addresses}") long knownAddresses,
+                               @Value("${security.analysis.queue.known-address-expiry-minutes}") long knownAddressExpiryMinutes) {
+        this.capacity = capacity;
+        this.perAgentLimit = parsePolicy(policy) == ShedPolicy.LATEST_PER_AGENT ? 1 : perAgentLimit;
+        this.priorityCpuPercent = priorityCpuPercent;
+        this.priorityUploadBytesSec = priorityUploadBytesSec;
+        // Written once per address, so an address seen continuously becomes priority again once per expiry
+        this.knownAddresses = Caffeine.newBuilder()
+                .maximumSize(knownAddresses)
+                .expireAfterWrite(Duration.ofMinutes(knownAddressExpiryMinutes))
+                .build();
+
+        Gauge.builder("security.analysis.queued", this, AnalysisIntakeQueue::size)
+                .description("Telemetry samples waiting for security analysis")
+                .register(meterRegistry);
+        this.admitted = admittedCounter(meterRegistry, false);
+        this.admittedPriority = admittedCounter(meterRegistry, true);
+        this.shedAgentLimit = shedCounter(meterRegistry, "agent-limit");
+        this.shedCapacity = shedCounter(meterRegistry, "capacity");
+    }
+
+    /**
+     * Queues {@code event} for analysis unless it is shed; returns whether it was admitted. Both limits are
+     * checked before anything is removed, so admitting a sample costs at most one older one.
+     */
+    public boolean offer(TelemetryReceivedEvent event) {
+        boolean priority = isPriority(event);
+        lock.lock();
+        try {
+            Predicate<Pending> sameAgent = p -> Objects.equals(p.event().agentId(), event.agentId());
+            // Shedding one of the agent's own samples also frees a place in the whole queue
+            if (count(sameAgent) >= perAgentLimit) {
+                if (!makeRoom(sameAgent, priority, shedAgentLimit)) {
+                    return false;
+                }
+            } else if (pending.size() >= capacity && !makeRoom(p -> true, priority, shedCapacity)) {
+                return false;
+            }
+            pending.addLast(new Pending(event, priority));
+            (priority ? admittedPriority : admitted).increment();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Waits for the next sample, oldest priority sample first. */
+    public TelemetryReceivedEvent take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (pending.isEmpty()) {
+                notEmpty.await();
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Like {@link #take}, but returns {@code null} when nothing arrives within {@code timeout}. */
+    public TelemetryReceivedEvent poll(Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lockInterruptibly();
+        try {
+            while (pending.isEmpty()) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            return next();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private TelemetryReceivedEvent next() {
+        Pending next = removeFirst(Pending::priority);
+        return (next != null ? next : pending.pollFirst()).event();
+    }
+
+    // Queues stay small (capacity is a few hundred), so linear scans under the lock are cheap
+    private int count(Predicate<Pending> scope) {
+        int count = 0;
+        for (Pending p : pending) {
+            if (scope.test(p)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean makeRoom(Predicate<Pending> scope, boolean incomingPriority, Counter shed) {
+        // Either an older sample or the incoming one is shed
+        shed.increment();
+        return removeFirst(scope.and(p -> !p.priority())) != null
+                || (incomingPriority && removeFirst(scope) != null);
+    }
+
+    private Pending removeFirst(Predicate<Pending> match) {
+        for (Iterator<Pending> it = pending.iterator(); it.hasNext(); ) {
+            Pending p = it.next();
+            if (match.test(p)) {
+                it.remove();
+                return p;
+            }
+        }
+        return null;
+    }
+
+    private boolean isPriority(TelemetryReceivedEvent event) {
+        boolean priority = event.cpuUsage() >= priorityCpuPercent || event.bytesSentSec() >= priorityUploadBytesSec;
+        if (event.networkConnections() != null) {
+            for (TelemetryReceivedEvent.NetworkConnectionInfo connection : event.networkConnections()) {
+                String address = connection.remoteAddress();
+                if (isPublicAddress(address) && knownAddresses.asMap().putIfAbsent(address, Boolean.TRUE) == null) {
+                    priority = true;
+                }
+            }
+        }
+        return priority;
+    }
+
+    static boolean isPublicAddress(String address) {
+        if (address == null || address.isBlank() || address.equals("0.0.0.0") || address.equals("::")
+                || address.equals("::1") || address.startsWith("127.") || address.startsWith("10.")
+                || address.startsWith("192.168.") || address.startsWith("169.254.")
+                || address.toLowerCase(Locale.ROOT).startsWith("fe80:")) {
+            return false;
+        }
+        if (address.startsWith("172.")) {
+            int end = address.indexOf('.', 4);
+            if (end > 4) {
+                try {
+                    int second = Integer.parseInt(address.substring(4, end));
+                    return second < 16 || second > 31;
+                } catch (NumberFormatException ex) {
+                    return true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static ShedPolicy parsePolicy(String policy) {
+        return ShedPolicy.valueOf(policy.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    private static Counter admittedCounter(MeterRegistry meterRegistry, boolean priority) {
+        return Counter.builder("security.analysis.admitted")
+                .description("Telemetry samples queued for security analysis")
+                .tag("priority", Boolean.toString(priority))
+                .register(meterRegistry);
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("security.analysis.shed")
+                .description("Telemetry samples dropped from the security analysis backlog")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record Pending(TelemetryReceivedEvent event, boolean priority) {
+    }
+}
@@ -2,7 +2,12 @@ package com.sentinelagent.backend.securityanalysis.internal.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.sentinelagent.backend.securityanalysis.internal.domain.AnalysisResult;
+import com.sentinelagent.backend.shared.metrics.OutcomeTimer;
+import com.sentinelagent.backend.telemetry.api.TelemetryFacade;
+import com.sentinelagent.backend.telemetry.dto.TelemetryWindowStats;
 import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.PromptTemplate;
@@ -14,9 +19,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,10 +32,13 @@ import java.util.stream.Collectors;
 public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
 
     private static final double SIMILARITY_THRESHOLD = 0.70;
+    private static final Tags LLM_CALLER = Tags.of("caller", "analysis");
 
     private final ChatModel chatModel;
     private final VectorStore vectorStore;
     private final RestClient restClient;
+    private final TelemetryFacade telemetryFacade;
+    private final MeterRegistry meterRegistry;
 
     @Value("${security.api.abuseipdb.key}")
     private String apiKey;
@@ -35,10 +46,16 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
     @Value("${security.api.abuseipdb.url}")
     private String apiUrl;
 
-    public SecurityAnalysisServiceImpl(ChatModel chatModel, VectorStore vectorStore, RestClient.Builder builder) {
+    @Value("${security.analysis.trend-minutes}")
+    private int trendMinutes;
+
+    public SecurityAnalysisServiceImpl(ChatModel chatModel, VectorStore vectorStore, RestClient.Builder builder,
+                                       TelemetryFacade telemetryFacade, MeterRegistry meterRegistry) {
         this.chatModel = chatModel;
         this.vectorStore = vectorStore;
         this.restClient = builder.build();
+        this.telemetryFacade = telemetryFacade;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -47,6 +64,7 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
         double downloadMB = event.bytesRecvSec() / 1024.0 / 1024.0;
 
         String networkContext = enrichNetworkData(event.networkConnections());
+        String trendContext = describeRecentTrend(event.agentId());
         String ragContext = findMitigationStrategy("High resource usage or suspicious network connection");
         if (ragContext == null) {
             ragContext = "No specific MITRE data found.";
@@ -73,9 +91,12 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
                - Network Download Speed: {download} MB/s
                - Active Processes: {processes}
 
+               --- RECENT TREND (same host) ---
+               {trend_context}
+
        --- ANALYSIS INSTRUCTIONS ---
        1. REPUTATION CHECK: Scan the 'Network Intelligence' for any malicious IPs. If found, elevate risk immediately.
-       2. ANOMALY DETECTION: High upload speeds (Exfiltration) combined with high CPU (Encryption/Hashing) are primary indicators of Ransomware or Data Theft.
+       2. ANOMALY DETECTION: High upload speeds (Exfiltration) combined with high CPU (Encryption/Hashing) are primary indicators of Ransomware or Data Theft. Weigh a sustained rise in the recent trend more than a single spike.
        3. PROCESS SCRUTINY: Check process names in network connections. Flag unauthorized binaries communicating with external IPs.
        4. RISK DETERMINATION: Classify the risk as SAFE, LOW, MEDIUM, HIGH, or CRITICAL.
 
@@ -90,6 +111,7 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
         Map<String, Object> params = Map.of(
                 "rag_context", ragContext,
                 "network_context", networkContext,
+                "trend_context", trendContext,
                 "hostname", event.hostname() != null ? event.hostname() : "Unknown-Host",
                 "cpu", event.cpuUsage(),
                 "ram", event.ramUsedPercent(),
@@ -99,7 +121,8 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
                 "processes", event.processes() != null ? event.processes().toString() : "No processes");
 
         try {
-            String response = chatModel.call(template.create(params)).getResult().getOutput().getText();
+            String response = OutcomeTimer.record(meterRegistry, "ai.chat.calls", LLM_CALLER,
+                    () -> chatModel.call(template.create(params)).getResult().getOutput().getText());
             log.debug("[SecurityAnalysisService] Raw AI response: {}", response);
             String cleaned = cleanJsonResponse(response);
             log.debug("[SecurityAnalysisService] Cleaned AI response: {}", cleaned);
@@ -110,6 +133,35 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
         }
     }
 
+    private String describeRecentTrend(String agentId) {
+        Optional<TelemetryWindowStats> recent = telemetryFacade.getRecentWindow(agentId, Duration.ofMinutes(trendMinutes));
+        if (recent.isEmpty() || recent.get().sampleCount() < 2) {
+            return "No recent history for this host.";
+        }
+        TelemetryWindowStats window = recent.get();
+        return String.format("""
+                Last %d minutes, %d samples:
+                - CPU: avg %.1f%%, p95 %.1f%%, max %.1f%%, trend %+.2f%%/min
+                - RAM: avg %.1f%%, p95 %.1f%%, trend %+.2f%%/min
+                - Upload: avg %.2f MB/s, p95 %.2f MB/s, trend %+.3f MB/s per min
+                - Download: avg %.2f MB/s, p95 %.2f MB/s""",
+                trendMinutes, window.sampleCount(),
+                window.cpuUsage().avg(), window.cpuUsage().p95(), window.cpuUsage().max(), window.cpuUsage().slopePerMinute(),
+                window.ramUsedPercent().avg(), window.ramUsedPercent().p95(), window.ramUsedPercent().slopePerMinute(),
+                toMegabytes(window.bytesSentSec().avg()), toMegabytes(window.bytesSentSec().p95()),
+                toMegabytes(window.bytesSentSec().slopePerMinute()),
+                toMegabytes(window.bytesRecvSec().avg()), toMegabytes(window.bytesRecvSec().p95()));
+    }
+
+    private static double toMegabytes(double bytes) {
+        return bytes / 1024.0 / 1024.0;
+    }
+
+    // Enrichment lookups, one timer per service, so a slow reputation or GeoIP provider shows up on its own
+    private <T> T timeExternal(String service, Supplier<T> call) {
+        return OutcomeTimer.record(meterRegistry, "security.analysis.external", Tags.of("service", service), call);
+    }
+
     private String cleanJsonResponse(String response) {
         if (response == null) {
             return "{}";
@@ -127,7 +179,7 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
                 .similarityThreshold(SIMILARITY_THRESHOLD)
                 .build();
 
-        List<Document> similarDocs = vectorStore.similaritySearch(request);
+        List<Document> similarDocs = timeExternal("vector-store", () -> vectorStore.similaritySearch(request));
 
         if (similarDocs.isEmpty()) {
             log.warn("⚠️ No relevant knowledge found in vector store for this threat.");
@@ -179,12 +231,12 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
         }
 
         try {
-            JsonNode response = restClient.get()
+            JsonNode response = timeExternal("abuseipdb", () -> restClient.get()
                     .uri(apiUrl + "?ipAddress=" + ip)
                     .header("Key", apiKey)
                     .header("Accept", "application/json")
                     .retrieve()
-                    .body(JsonNode.class);
+                    .body(JsonNode.class));
 
             if (response != null && response.has("data")) {
                 int score = response.get("data").get("abuseConfidenceScore").asInt();
@@ -202,10 +254,10 @@ public class SecurityAnalysisServiceImpl implements SecurityAnalysisService {
             return "Unknown";
         }
         try {
-            JsonNode response = restClient.get()
+            JsonNode response = timeExternal("ip-api", () -> restClient.get()
                     .uri("http://ip-api.com/json/" + ip)
                     .retrieve()
-                    .body(JsonNode.class);
+                    .body(JsonNode.class));
 
             if (response != null && response.has("country")) {
                 return response.get("country").asText();
@@ -1,7 +1,10 @@
 package com.sentinelagent.backend.securityanalysis.internal.service;
 
+import com.sentinelagent.backend.shared.metrics.OutcomeTimer;
 import com.sentinelagent.backend.telemetry.api.TelemetryFacade;
 import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
@@ -17,9 +20,11 @@ import java.util.Optional;
 public class SecurityChatServiceImpl implements SecurityChatService {
 
     private static final String CHAT_FALLBACK = "AI uplink is temporarily unavailable. Please try again in a moment.";
+    private static final Tags LLM_CALLER = Tags.of("caller", "chat");
 
     private final ChatModel chatModel;
     private final TelemetryFacade telemetryFacade;
+    private final MeterRegistry meterRegistry;
 
     @Override
     public String chatWithAgent(String message, String agentId) {
@@ -51,12 +56,13 @@ public class SecurityChatServiceImpl implements SecurityChatService {
                     User message: {message}
                     """);
 
-            String responseText = chatModel.call(template.create(Map.of(
-                            "message", message,
-                            "telemetry", telemetryContext)))
-                    .getResult()
-                    .getOutput()
-                    .getText();
+            String responseText = OutcomeTimer.record(meterRegistry, "ai.chat.calls", LLM_CALLER,
+                    () -> chatModel.call(template.create(Map.of(
+                                    "message", message,
+                                    "telemetry", telemetryContext)))
+                            .getResult()
+                            .getOutput()
+                            .getText());
 
             if (responseText == null || responseText.isBlank()) {
                 return CHAT_FALLBACK;
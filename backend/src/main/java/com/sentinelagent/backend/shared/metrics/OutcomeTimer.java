@@ -0,0 +1,32 @@
+package com.sentinelagent.backend.shared.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.function.Supplier;
+
+/**
+ * Times a call into a timer tagged with its {@code outcome}, {@code success} or {@code error}, so slow
+ * failures (timeouts, rate limits) can be told apart from slow answers.
+ */
+public final class OutcomeTimer {
+
+    private OutcomeTimer() {
+    }
+
+    public static <T> T record(MeterRegistry meterRegistry, String name, Tags tags, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
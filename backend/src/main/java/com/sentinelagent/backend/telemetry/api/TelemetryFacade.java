@@ -2,11 +2,13 @@ package com.sentinelagent.backend.telemetry.api;
 
 import com.sentinelagent.backend.telemetry.dto.TelemetryAiSummaryResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryWindowStats;
 import com.sentinelagent.backend.telemetry.internal.service.TelemetryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.modulith.NamedInterface;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -29,4 +31,8 @@ public class TelemetryFacade {
     public TelemetryAiSummaryResponse getAiSummary(String agentId, LocalDateTime from, LocalDateTime to) {
         return telemetryService.getAiSummary(agentId, from, to);
     }
+
+    public Optional<TelemetryWindowStats> getRecentWindow(String agentId, Duration window) {
+        return telemetryService.getRecentWindow(agentId, window);
+    }
 }
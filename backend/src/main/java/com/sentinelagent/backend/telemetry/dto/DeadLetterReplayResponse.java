@@ -0,0 +1,4 @@
+package com.sentinelagent.backend.telemetry.dto;
+
+public record DeadLetterReplayResponse(int replayed) {
+}
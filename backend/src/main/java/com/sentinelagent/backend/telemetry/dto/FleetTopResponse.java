@@ -0,0 +1,11 @@
+package com.sentinelagent.backend.telemetry.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record FleetTopResponse(
+        String metric,
+        List<Entry> entries
+) {
+    public record Entry(String agentId, String hostname, double value, LocalDateTime receivedAt) {}
+}
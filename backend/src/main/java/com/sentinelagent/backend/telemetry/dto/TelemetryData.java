@@ -1,10 +1,12 @@
 package com.sentinelagent.backend.telemetry.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -30,6 +32,16 @@ public class TelemetryData {
     private List<ProcessData> processes;
     private List<NetworkConnectionData> networkConnections;
 
+    // Delta samples: with a baseSequence, processes and networkConnections only hold entries added or
+    // changed since that sample, and the removals are listed separately
+    private Long sequence;
+    private Long baseSequence;
+    private List<Integer> removedProcessPids;
+    private List<NetworkConnectionData> removedConnections;
+
+    // Agent clock time of the sample as sent over Kafka; identifies redeliveries and never replaces receivedAt
+    private Instant sentAt;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -47,10 +59,15 @@ public class TelemetryData {
     @Builder
     public static class NetworkConnectionData {
         private int pid;
+        @JsonAlias("process_name")
         private String processName;
+        @JsonAlias("local_address")
         private String localAddress;
+        @JsonAlias("local_port")
         private int localPort;
+        @JsonAlias("remote_address")
         private String remoteAddress;
+        @JsonAlias("remote_port")
         private int remotePort;
         private String status;
     }
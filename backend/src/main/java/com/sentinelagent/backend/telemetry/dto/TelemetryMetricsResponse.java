@@ -0,0 +1,17 @@
+package com.sentinelagent.backend.telemetry.dto;
+
+import java.time.LocalDateTime;
+
+public record TelemetryMetricsResponse(
+        String agentId,
+        String hostname,
+        double cpuUsage,
+        double ramUsedPercent,
+        long ramTotalMb,
+        double diskUsedPercent,
+        long diskTotalGb,
+        long bytesSentSec,
+        long bytesRecvSec,
+        LocalDateTime receivedAt
+) {
+}
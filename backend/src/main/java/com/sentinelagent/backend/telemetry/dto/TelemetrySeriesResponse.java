@@ -0,0 +1,20 @@
+package com.sentinelagent.backend.telemetry.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record TelemetrySeriesResponse(
+        String agentId,
+        String resolution,
+        long bucketSeconds,
+        LocalDateTime from,
+        LocalDateTime to,
+        List<SeriesPoint> points
+) {
+    public record SeriesPoint(LocalDateTime timestamp, long sampleCount,
+                              MetricSummary cpuUsage, MetricSummary ramUsedPercent,
+                              MetricSummary diskUsedPercent, MetricSummary bytesSentSec,
+                              MetricSummary bytesRecvSec) {}
+
+    public record MetricSummary(double min, double avg, double max, double last) {}
+}
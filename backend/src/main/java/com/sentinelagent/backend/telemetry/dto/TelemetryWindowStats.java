@@ -0,0 +1,18 @@
+package com.sentinelagent.backend.telemetry.dto;
+
+import java.time.LocalDateTime;
+
+public record TelemetryWindowStats(
+        String agentId,
+        int sampleCount,
+        LocalDateTime firstSampleAt,
+        LocalDateTime lastSampleAt,
+        Stats cpuUsage,
+        Stats ramUsedPercent,
+        Stats diskUsedPercent,
+        Stats bytesSentSec,
+        Stats bytesRecvSec
+) {
+    /** Slope is the least-squares change per minute over the window. */
+    public record Stats(double avg, double min, double max, double p95, double slopePerMinute) {}
+}
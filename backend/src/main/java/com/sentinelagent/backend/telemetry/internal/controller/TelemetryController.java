@@ -1,12 +1,29 @@
 package com.sentinelagent.backend.telemetry.internal.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sentinelagent.backend.telemetry.dto.DeadLetterReplayResponse;
+import com.sentinelagent.backend.telemetry.dto.FleetTopResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryAiSummaryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryMetricsResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetrySeriesResponse;
+import com.sentinelagent.backend.telemetry.internal.messaging.TelemetryDeadLetterReplayer;
+import com.sentinelagent.backend.telemetry.internal.service.FleetLeaderboard;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryLiveBroadcaster;
 import com.sentinelagent.backend.telemetry.internal.service.TelemetryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -15,7 +32,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TelemetryController {
 
+    private static final int MAX_FLEET_TOP = 500;
+
     private final TelemetryService telemetryService;
+    private final TelemetryDeadLetterReplayer deadLetterReplayer;
+    private final ObjectMapper objectMapper;
+    private final TelemetryLiveBroadcaster liveBroadcaster;
+    private final FleetLeaderboard fleetLeaderboard;
 
     @GetMapping("/agents/{agentId}/history")
     public ResponseEntity<List<TelemetryResponse>> getHistoricalMetrics(
@@ -30,6 +53,90 @@ public class TelemetryController {
         return ResponseEntity.ok(history);
     }
 
+    /** Same history with only the scalar metrics, for charts: {@code ?fields=metrics}. */
+    @GetMapping(value = "/agents/{agentId}/history", params = "fields=metrics")
+    public ResponseEntity<List<TelemetryMetricsResponse>> getHistoricalMetricValues(
+            @PathVariable("agentId") String agentId,
+            @RequestParam(name = "hoursBack", defaultValue = "1") int hoursBack) {
+
+        LocalDateTime end = LocalDateTime.now();
+        LocalDateTime start = end.minusHours(hoursBack);
+
+        return ResponseEntity.ok(telemetryService.getHistoryMetrics(agentId, start, end));
+    }
+
+    /**
+     * Same history as newline-delimited JSON, selected with {@code Accept: application/x-ndjson}. Reports
+     * are written as they are read from the database, so memory use does not depend on the range.
+     */
+    @GetMapping(value = "/agents/{agentId}/history", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamHistoricalMetrics(
+            @PathVariable("agentId") String agentId,
+            @RequestParam(name = "hoursBack", defaultValue = "1") int hoursBack) {
+
+        LocalDateTime end = LocalDateTime.now();
+        LocalDateTime start = end.minusHours(hoursBack);
+
+        // Let the generator's buffer decide when bytes go out instead of flushing after every report
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = output -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(output)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                telemetryService.streamHistory(agentId, start, end, report -> {
+                    try {
+                        writer.writeValue(generator, report);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/agents/{agentId}/history/series")
+    public ResponseEntity<TelemetrySeriesResponse> getHistorySeries(
+            @PathVariable("agentId") String agentId,
+            @RequestParam(name = "hoursBack", defaultValue = "1") int hoursBack,
+            @RequestParam(name = "points", defaultValue = "300") int points) {
+
+        LocalDateTime end = LocalDateTime.now();
+        LocalDateTime start = end.minusHours(Math.max(hoursBack, 1));
+
+        TelemetrySeriesResponse series = telemetryService.getHistorySeries(agentId, start, end, Math.max(points, 1));
+        return ResponseEntity.ok(series);
+    }
+
+    /**
+     * Server-sent stream of reports as they are stored, for one agent or, without {@code agentId}, the
+     * whole fleet. {@code fields=metrics} leaves out the process and connection lists.
+     */
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLiveMetrics(
+            @RequestParam(name = "agentId", required = false) String agentId,
+            @RequestParam(name = "fields", required = false) String fields) {
+
+        return liveBroadcaster.subscribe(agentId, "metrics".equals(fields))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
+    /**
+     * Agents with the highest current value of {@code metric} (cpu, ram, disk, upload or download), served
+     * from memory. Agents idle longer than the leaderboard idle time are left out.
+     */
+    @GetMapping("/fleet/top")
+    public ResponseEntity<FleetTopResponse> getFleetTop(
+            @RequestParam(name = "metric", defaultValue = "cpu") String metric,
+            @RequestParam(name = "limit", defaultValue = "20") int limit) {
+
+        return FleetLeaderboard.Metric.fromName(metric)
+                .map(m -> ResponseEntity.ok(fleetLeaderboard.top(m, Math.min(Math.max(limit, 1), MAX_FLEET_TOP))))
+                .orElse(ResponseEntity.badRequest().build());
+    }
+
     @GetMapping("/agents/{agentId}/latest")
     public ResponseEntity<TelemetryResponse> getLatestMetrics(@PathVariable("agentId") String agentId) {
         return telemetryService.getLatest(agentId)
@@ -48,4 +155,12 @@ public class TelemetryController {
         TelemetryAiSummaryResponse summary = telemetryService.getAiSummary(agentId, start, end);
         return ResponseEntity.ok(summary);
     }
+
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<DeadLetterReplayResponse> replayDeadLetters(
+            @RequestParam(name = "max", defaultValue = "1000") int max) {
+
+        int replayed = deadLetterReplayer.replay(max);
+        return ResponseEntity.ok(new DeadLetterReplayResponse(replayed));
+    }
 }
@@ -0,0 +1,65 @@
+package com.sentinelagent.backend.telemetry.internal.controller;
+
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
+import com.sentinelagent.backend.telemetry.internal.repository.TelemetryRetentionPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Storage used by each telemetry tier, at /actuator/telemetrystorage.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "telemetrystorage")
+@RequiredArgsConstructor
+public class TelemetryStorageEndpoint {
+
+    private final MongoTemplate mongoTemplate;
+    private final TelemetryRetentionPolicy retentionPolicy;
+
+    @ReadOperation
+    public Map<String, TierStorage> storage() {
+        Map<String, TierStorage> tiers = new LinkedHashMap<>();
+        for (RollupResolution tier : RollupResolution.values()) {
+            tiers.put(tier.name().toLowerCase(), describe(tier));
+        }
+        return tiers;
+    }
+
+    private TierStorage describe(RollupResolution tier) {
+        long retentionDays = retentionPolicy.retentionFor(tier).toDays();
+        try {
+            if (!mongoTemplate.collectionExists(tier.getCollection())) {
+                return new TierStorage(tier.getCollection(), retentionDays, 0, 0, 0, 0);
+            }
+            Document stats = mongoTemplate.executeCommand(new Document("collStats", tier.getCollection()));
+            return new TierStorage(tier.getCollection(), retentionDays,
+                    longValue(stats, "count"),
+                    longValue(stats, "size"),
+                    longValue(stats, "storageSize"),
+                    longValue(stats, "totalIndexSize"));
+        } catch (DataAccessException ex) {
+            log.warn("Could not read storage statistics of {}: {}", tier.getCollection(), ex.getMessage());
+            return new TierStorage(tier.getCollection(), retentionDays, -1, -1, -1, -1);
+        }
+    }
+
+    private static long longValue(Document stats, String key) {
+        Object value = stats.get(key);
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+
+    /** Sizes are in bytes; -1 when the statistics could not be read. A zero retention keeps the tier forever. */
+    public record TierStorage(String collection, long retentionDays, long documents,
+                              long dataBytes, long storageBytes, long indexBytes) {
+    }
+}
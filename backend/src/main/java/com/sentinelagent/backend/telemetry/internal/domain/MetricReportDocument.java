@@ -5,8 +5,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,15 +16,18 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Document(collection = "agent_reports")
+@CompoundIndex(name = MetricReportDocument.AGENT_TIME_INDEX, def = "{'agentId': 1, 'receivedAt': -1}")
 public class MetricReportDocument {
 
+    public static final String AGENT_TIME_INDEX = "agentId_receivedAt";
+    public static final String IDEMPOTENCY_KEY_INDEX = "idempotencyKey_unique";
+
     @Id
     private String id;
 
     // Agent identification
-    @Indexed
     private String agentId;
     private String hostname;
 
@@ -42,9 +46,15 @@ public class MetricReportDocument {
     private List<ProcessDocument> processes;
     private List<NetworkConnectionDocument> networkConnections;
 
-    @Indexed
     private LocalDateTime receivedAt;
 
+    // Identifies the agent sample, so a redelivered copy is rejected; absent for samples without a timestamp
+    private String idempotencyKey;
+
+    // Dictionary-encoded layout only: the distinct strings of processes and networkConnections, which then
+    // refer to them by index. Decoded on read, so it is always null in memory.
+    private List<String> strings;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -54,6 +64,19 @@ public class MetricReportDocument {
         private String name;
         private double cpuUsage;
         private String username;
+
+        // Indexes into strings, in place of name and username, in the dictionary-encoded layout
+        @Field("n")
+        private Integer nameRef;
+        @Field("u")
+        private Integer usernameRef;
+
+        public ProcessDocument(int pid, String name, double cpuUsage, String username) {
+            this.pid = pid;
+            this.name = name;
+            this.cpuUsage = cpuUsage;
+            this.username = username;
+        }
     }
 
     @Data
@@ -68,5 +91,26 @@ public class MetricReportDocument {
         private int remotePort;
         private String status;
         private String processName;
+
+        // Indexes into strings, in place of the string fields, in the dictionary-encoded layout
+        @Field("la")
+        private Integer localAddressRef;
+        @Field("ra")
+        private Integer remoteAddressRef;
+        @Field("s")
+        private Integer statusRef;
+        @Field("pn")
+        private Integer processNameRef;
+
+        public NetworkConnectionDocument(int pid, String localAddress, int localPort, String remoteAddress,
+                                         int remotePort, String status, String processName) {
+            this.pid = pid;
+            this.localAddress = localAddress;
+            this.localPort = localPort;
+            this.remoteAddress = remoteAddress;
+            this.remotePort = remotePort;
+            this.status = status;
+            this.processName = processName;
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.sentinelagent.backend.telemetry.internal.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+/**
+ * One agent's metrics over one bucket of a {@link RollupResolution}. The collection depends on the
+ * resolution; the id is derived from agent and bucket so re-applying a flush targets the same document.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MetricRollupDocument {
+
+    public static final String AGENT_BUCKET_INDEX = "agentId_bucketStart";
+
+    @Id
+    private String id;
+
+    private String agentId;
+    private LocalDateTime bucketStart;
+
+    private long sampleCount;
+    private LocalDateTime lastSampleAt;
+
+    private MetricStats cpuUsage;
+    private MetricStats ramUsedPercent;
+    private MetricStats diskUsedPercent;
+    private MetricStats bytesSentSec;
+    private MetricStats bytesRecvSec;
+
+    public static String idOf(String agentId, LocalDateTime bucketStart) {
+        return agentId + '|' + bucketStart;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class MetricStats {
+        private double min;
+        private double max;
+        private double sum;
+        private double last;
+    }
+}
@@ -0,0 +1,20 @@
+package com.sentinelagent.backend.telemetry.internal.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * The scalar metrics of one stored report, read without its process and connection lists.
+ */
+public record MetricSample(
+        String agentId,
+        String hostname,
+        double cpuUsage,
+        double ramUsedPercent,
+        long ramTotalMb,
+        double diskUsedPercent,
+        long diskTotalGb,
+        long bytesSentSec,
+        long bytesRecvSec,
+        LocalDateTime receivedAt
+) {
+}
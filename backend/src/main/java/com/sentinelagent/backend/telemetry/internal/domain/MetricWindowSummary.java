@@ -0,0 +1,18 @@
+package com.sentinelagent.backend.telemetry.internal.domain;
+
+/**
+ * Aggregates of one agent's reports over a time window, computed by the database in a single pass.
+ * Network rates are in bytes per second.
+ */
+public record MetricWindowSummary(
+        long sampleCount,
+        double avgCpuUsage,
+        double avgRamUsedPercent,
+        double avgBytesSentSec,
+        double avgBytesRecvSec,
+        double firstCpuUsage,
+        double firstRamUsedPercent,
+        double lastCpuUsage,
+        double lastRamUsedPercent
+) {
+}
@@ -0,0 +1,62 @@
+package com.sentinelagent.backend.telemetry.internal.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Resolutions a metric series can be read at, each stored in its own collection. RAW is agent_reports
+ * itself; its step is the agent's nominal sampling interval. The others are pre-aggregated buckets.
+ */
+public enum RollupResolution {
+
+    RAW("agent_reports", "receivedAt", Duration.ofSeconds(10), ChronoUnit.SECONDS),
+    MINUTE("agent_report_rollups_1m", "bucketStart", Duration.ofMinutes(1), ChronoUnit.MINUTES),
+    HOUR("agent_report_rollups_1h", "bucketStart", Duration.ofHours(1), ChronoUnit.HOURS);
+
+    private final String collection;
+    private final String timeField;
+    private final Duration step;
+    private final ChronoUnit unit;
+
+    RollupResolution(String collection, String timeField, Duration step, ChronoUnit unit) {
+        this.collection = collection;
+        this.timeField = timeField;
+        this.step = step;
+        this.unit = unit;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getTimeField() {
+        return timeField;
+    }
+
+    public Duration getStep() {
+        return step;
+    }
+
+    public boolean isRollup() {
+        return this != RAW;
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * The coarsest resolution that still yields at least {@code points} buckets over {@code range}; RAW
+     * when even minutes are too coarse.
+     */
+    public static RollupResolution coarsestFor(Duration range, int points) {
+        RollupResolution[] resolutions = values();
+        for (int i = resolutions.length - 1; i > 0; i--) {
+            if (range.dividedBy(resolutions[i].step) >= points) {
+                return resolutions[i];
+            }
+        }
+        return RAW;
+    }
+}
@@ -2,24 +2,32 @@ package com.sentinelagent.backend.telemetry.internal.mapper;
 
 import com.sentinelagent.backend.telemetry.dto.TelemetryAiSummaryResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.dto.TelemetryMetricsResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetrySeriesResponse;
 import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
-import com.sentinelagent.backend.telemetry.internal.domain.MetricReport;
-import com.sentinelagent.backend.telemetry.internal.domain.NetworkConnection;
-import com.sentinelagent.backend.telemetry.internal.domain.Process;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricSample;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricWindowSummary;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.OptionalDouble;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Component
 public class TelemetryMapper {
 
-    public MetricReport toMetricReport(TelemetryData data) {
-        return MetricReport.builder()
+    /**
+     * Builds the stored form of a sample straight from the decoded message, one object per process and
+     * connection. The response and event of the stored report are then built from this document.
+     */
+    public MetricReportDocument toDocument(TelemetryData data) {
+        return MetricReportDocument.builder()
                 .agentId(data.getAgentId())
                 .hostname(data.getHostname())
                 .cpuUsage(data.getCpuUsage())
@@ -29,126 +37,182 @@ public class TelemetryMapper {
                 .diskTotalGb(data.getDiskTotalGb())
                 .bytesSentSec(data.getBytesSentSec())
                 .bytesRecvSec(data.getBytesRecvSec())
-                .processes(mapProcesses(data.getProcesses()))
-                .networkConnections(mapConnections(data.getNetworkConnections()))
+                .processes(mapProcessDocuments(data.getProcesses()))
+                .networkConnections(mapConnectionDocuments(data.getNetworkConnections()))
                 .receivedAt(data.getTimestamp() != null ? data.getTimestamp() : LocalDateTime.now())
                 .build();
     }
 
-    public TelemetryResponse toResponse(MetricReport report) {
+    /** Maps a stored report straight to its response, without the intermediate domain object. */
+    public TelemetryResponse toResponse(MetricReportDocument document) {
         return new TelemetryResponse(
-                report.getAgentId(),
-                report.getHostname(),
-                report.getCpuUsage(),
-                report.getRamUsedPercent(),
-                report.getRamTotalMb(),
-                report.getDiskUsedPercent(),
-                report.getDiskTotalGb(),
-                report.getBytesSentSec(),
-                report.getBytesRecvSec(),
-                mapProcessResponses(report.getProcesses()),
-                mapConnectionResponses(report.getNetworkConnections()),
-                report.getReceivedAt());
+                document.getAgentId(),
+                document.getHostname(),
+                document.getCpuUsage(),
+                document.getRamUsedPercent(),
+                document.getRamTotalMb(),
+                document.getDiskUsedPercent(),
+                document.getDiskTotalGb(),
+                document.getBytesSentSec(),
+                document.getBytesRecvSec(),
+                mapProcessResponses(document.getProcesses()),
+                mapConnectionResponses(document.getNetworkConnections()),
+                document.getReceivedAt());
     }
 
-    public TelemetryAiSummaryResponse toAiSummary(String agentId, List<MetricReport> reports, LocalDateTime start, LocalDateTime end) {
-        if (reports == null || reports.isEmpty()) {
+    public TelemetryAiSummaryResponse toAiSummary(String agentId, Optional<MetricWindowSummary> window) {
+        if (window.isEmpty() || window.get().sampleCount() == 0) {
             return new TelemetryAiSummaryResponse(agentId, 0, 0, 0, 0, 0, 0, 0, "UNKNOWN", "UNKNOWN");
         }
 
-        MetricReport first = reports.get(0);
-        MetricReport last = reports.get(reports.size() - 1);
-
-        OptionalDouble avgCpu = reports.stream().mapToDouble(MetricReport::getCpuUsage).average();
-        OptionalDouble avgRam = reports.stream().mapToDouble(MetricReport::getRamUsedPercent).average();
-        OptionalDouble avgUpload = reports.stream().mapToDouble(r -> r.getBytesSentSec() / 1_000_000.0).average();
-        OptionalDouble avgDownload = reports.stream().mapToDouble(r -> r.getBytesRecvSec() / 1_000_000.0).average();
-
+        MetricWindowSummary summary = window.get();
         return new TelemetryAiSummaryResponse(
                 agentId,
-                reports.size(),
-                avgCpu.orElse(0),
-                avgRam.orElse(0),
-                avgUpload.orElse(0),
-                avgDownload.orElse(0),
-                last.getCpuUsage(),
-                last.getRamUsedPercent(),
-                toTrend(first.getCpuUsage(), last.getCpuUsage()),
-                toTrend(first.getRamUsedPercent(), last.getRamUsedPercent()));
+                (int) summary.sampleCount(),
+                summary.avgCpuUsage(),
+                summary.avgRamUsedPercent(),
+                summary.avgBytesSentSec() / 1_000_000.0,
+                summary.avgBytesRecvSec() / 1_000_000.0,
+                summary.lastCpuUsage(),
+                summary.lastRamUsedPercent(),
+                toTrend(summary.firstCpuUsage(), summary.lastCpuUsage()),
+                toTrend(summary.firstRamUsedPercent(), summary.lastRamUsedPercent()));
+    }
+
+    public TelemetryMetricsResponse toMetricsResponse(MetricSample sample) {
+        return new TelemetryMetricsResponse(
+                sample.agentId(),
+                sample.hostname(),
+                sample.cpuUsage(),
+                sample.ramUsedPercent(),
+                sample.ramTotalMb(),
+                sample.diskUsedPercent(),
+                sample.diskTotalGb(),
+                sample.bytesSentSec(),
+                sample.bytesRecvSec(),
+                sample.receivedAt());
+    }
+
+    public TelemetryMetricsResponse toMetricsResponse(TelemetryResponse report) {
+        return new TelemetryMetricsResponse(
+                report.agentId(),
+                report.hostname(),
+                report.cpuUsage(),
+                report.ramUsedPercent(),
+                report.ramTotalMb(),
+                report.diskUsedPercent(),
+                report.diskTotalGb(),
+                report.bytesSentSec(),
+                report.bytesRecvSec(),
+                report.receivedAt());
     }
 
-    public TelemetryReceivedEvent toEvent(MetricReport report) {
+    public TelemetrySeriesResponse.SeriesPoint toSeriesPoint(MetricSample sample) {
+        return new TelemetrySeriesResponse.SeriesPoint(
+                sample.receivedAt(),
+                1,
+                singleValue(sample.cpuUsage()),
+                singleValue(sample.ramUsedPercent()),
+                singleValue(sample.diskUsedPercent()),
+                singleValue(sample.bytesSentSec()),
+                singleValue(sample.bytesRecvSec()));
+    }
+
+    public TelemetrySeriesResponse.SeriesPoint toSeriesPoint(MetricRollupDocument rollup) {
+        long count = rollup.getSampleCount();
+        return new TelemetrySeriesResponse.SeriesPoint(
+                rollup.getBucketStart(),
+                count,
+                summarize(rollup.getCpuUsage(), count),
+                summarize(rollup.getRamUsedPercent(), count),
+                summarize(rollup.getDiskUsedPercent(), count),
+                summarize(rollup.getBytesSentSec(), count),
+                summarize(rollup.getBytesRecvSec(), count));
+    }
+
+    /** The event for a stored report, from the rows of its response. */
+    public TelemetryReceivedEvent toEvent(String reportId, TelemetryResponse response) {
+        List<TelemetryReceivedEvent.ProcessInfo> processes = new ArrayList<>(response.processes().size());
+        for (TelemetryResponse.ProcessResponse p : response.processes()) {
+            processes.add(new TelemetryReceivedEvent.ProcessInfo(p.pid(), p.name(), p.cpuUsage(), p.username()));
+        }
+        List<TelemetryReceivedEvent.NetworkConnectionInfo> connections = new ArrayList<>(response.networkConnections().size());
+        for (TelemetryResponse.NetworkConnectionResponse c : response.networkConnections()) {
+            connections.add(new TelemetryReceivedEvent.NetworkConnectionInfo(
+                    c.pid(), c.processName(), c.remoteAddress(), c.remotePort(), c.status()));
+        }
         return new TelemetryReceivedEvent(
-                report.getId() != null ? report.getId().getValue() : null,
-                report.getAgentId(),
-                report.getHostname(),
-                report.getCpuUsage(),
-                report.getRamUsedPercent(),
-                report.getBytesSentSec(),
-                report.getBytesRecvSec(),
-                report.getProcesses() != null ? report.getProcesses().stream()
-                        .map(p -> new TelemetryReceivedEvent.ProcessInfo(p.getPid(), p.getName(), p.getCpuUsage(), p.getUsername()))
-                        .collect(Collectors.toList()) : List.of(),
-                report.getNetworkConnections() != null ? report.getNetworkConnections().stream()
-                        .map(n -> new TelemetryReceivedEvent.NetworkConnectionInfo(
-                                n.getPid(), n.getProcessName(), n.getRemoteAddress(), n.getRemotePort(), n.getStatus()))
-                        .collect(Collectors.toList()) : List.of());
+                reportId,
+                response.agentId(),
+                response.hostname(),
+                response.cpuUsage(),
+                response.ramUsedPercent(),
+                response.bytesSentSec(),
+                response.bytesRecvSec(),
+                processes,
+                connections);
     }
 
-    private List<Process> mapProcesses(List<TelemetryData.ProcessData> processes) {
+    private List<MetricReportDocument.ProcessDocument> mapProcessDocuments(List<TelemetryData.ProcessData> processes) {
         if (processes == null) {
-            return Collections.emptyList();
+            return new ArrayList<>();
         }
-        return processes.stream()
-                .map(p -> Process.builder()
-                        .pid(p.getPid())
-                        .name(p.getName())
-                        .cpuUsage(p.getCpu())
-                        .username(p.getUsername())
-                        .build())
-                .collect(Collectors.toList());
+        List<MetricReportDocument.ProcessDocument> documents = new ArrayList<>(processes.size());
+        for (TelemetryData.ProcessData p : processes) {
+            documents.add(new MetricReportDocument.ProcessDocument(p.getPid(), p.getName(), p.getCpu(), p.getUsername()));
+        }
+        return documents;
     }
 
-    private List<NetworkConnection> mapConnections(List<TelemetryData.NetworkConnectionData> connections) {
+    private List<MetricReportDocument.NetworkConnectionDocument> mapConnectionDocuments(
+            List<TelemetryData.NetworkConnectionData> connections) {
         if (connections == null) {
-            return Collections.emptyList();
+            return new ArrayList<>();
+        }
+        List<MetricReportDocument.NetworkConnectionDocument> documents = new ArrayList<>(connections.size());
+        for (TelemetryData.NetworkConnectionData c : connections) {
+            documents.add(new MetricReportDocument.NetworkConnectionDocument(c.getPid(), c.getLocalAddress(),
+                    c.getLocalPort(), c.getRemoteAddress(), c.getRemotePort(), c.getStatus(), c.getProcessName()));
         }
-        return connections.stream()
-                .map(c -> NetworkConnection.builder()
-                        .pid(c.getPid())
-                        .localAddress(c.getLocalAddress())
-                        .localPort(c.getLocalPort())
-                        .remoteAddress(c.getRemoteAddress())
-                        .remotePort(c.getRemotePort())
-                        .status(c.getStatus())
-                        .processName(c.getProcessName())
-                        .build())
-                .collect(Collectors.toList());
+        return documents;
     }
 
-    private List<TelemetryResponse.ProcessResponse> mapProcessResponses(List<Process> processes) {
-        if (processes == null) {
-            return Collections.emptyList();
+    // Responses are shared by the caches and live streams, so their lists are read-only
+    private List<TelemetryResponse.ProcessResponse> mapProcessResponses(List<MetricReportDocument.ProcessDocument> processes) {
+        if (processes == null || processes.isEmpty()) {
+            return List.of();
         }
-        return processes.stream()
-                .map(p -> new TelemetryResponse.ProcessResponse(p.getPid(), p.getName(), p.getCpuUsage(), p.getUsername()))
-                .collect(Collectors.toList());
+        TelemetryResponse.ProcessResponse[] responses = new TelemetryResponse.ProcessResponse[processes.size()];
+        for (int i = 0; i < responses.length; i++) {
+            MetricReportDocument.ProcessDocument p = processes.get(i);
+            responses[i] = new TelemetryResponse.ProcessResponse(p.getPid(), p.getName(), p.getCpuUsage(), p.getUsername());
+        }
+        return Collections.unmodifiableList(Arrays.asList(responses));
     }
 
-    private List<TelemetryResponse.NetworkConnectionResponse> mapConnectionResponses(List<NetworkConnection> connections) {
-        if (connections == null) {
-            return Collections.emptyList();
+    private List<TelemetryResponse.NetworkConnectionResponse> mapConnectionResponses(
+            List<MetricReportDocument.NetworkConnectionDocument> connections) {
+        if (connections == null || connections.isEmpty()) {
+            return List.of();
+        }
+        TelemetryResponse.NetworkConnectionResponse[] responses = new TelemetryResponse.NetworkConnectionResponse[connections.size()];
+        for (int i = 0; i < responses.length; i++) {
+            MetricReportDocument.NetworkConnectionDocument c = connections.get(i);
+            responses[i] = new TelemetryResponse.NetworkConnectionResponse(c.getPid(), c.getLocalAddress(),
+                    c.getLocalPort(), c.getRemoteAddress(), c.getRemotePort(), c.getStatus(), c.getProcessName());
+        }
+        return Collections.unmodifiableList(Arrays.asList(responses));
+    }
+
+    private TelemetrySeriesResponse.MetricSummary singleValue(double value) {
+        return new TelemetrySeriesResponse.MetricSummary(value, value, value, value);
+    }
+
+    private TelemetrySeriesResponse.MetricSummary summarize(MetricRollupDocument.MetricStats stats, long count) {
+        if (stats == null || count == 0) {
+            return new TelemetrySeriesResponse.MetricSummary(0, 0, 0, 0);
         }
-        return connections.stream()
-                .map(c -> new TelemetryResponse.NetworkConnectionResponse(
-                        c.getPid(),
-                        c.getLocalAddress(),
-                        c.getLocalPort(),
-                        c.getRemoteAddress(),
-                        c.getRemotePort(),
-                        c.getStatus(),
-                        c.getProcessName()))
-                .collect(Collectors.toList());
+        return new TelemetrySeriesResponse.MetricSummary(stats.getMin(), stats.getSum() / count, stats.getMax(), stats.getLast());
     }
 
     private String toTrend(double first, double last) {
@@ -0,0 +1,59 @@
+package com.sentinelagent.backend.telemetry.internal.mapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Bounded dictionary of the strings that repeat from sample to sample: hostnames, process and user names,
+ * connection states and addresses. Ingest swaps each sample's strings for the canonical instances before
+ * anything keeps it, so the snapshot store, caches and live events hold one copy per distinct value rather
+ * than one per sample. Once full, the dictionary keeps the values seen most often.
+ */
+@Component
+public class TelemetryStringInterner {
+
+    private final Cache<String, String> canonical;
+
+    public TelemetryStringInterner(@Value("${telemetry.interner.max-entries}") long maxEntries) {
+        this.canonical = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    public String intern(String value) {
+        return value == null ? null : canonical.get(value, v -> v);
+    }
+
+    /** Replaces the strings of {@code data}, its processes and connections with their canonical instances. */
+    public void internStrings(TelemetryData data) {
+        data.setAgentId(intern(data.getAgentId()));
+        data.setHostname(intern(data.getHostname()));
+        if (data.getProcesses() != null) {
+            for (TelemetryData.ProcessData process : data.getProcesses()) {
+                process.setName(intern(process.getName()));
+                process.setUsername(intern(process.getUsername()));
+            }
+        }
+        internConnections(data.getNetworkConnections());
+        internConnections(data.getRemovedConnections());
+    }
+
+    long size() {
+        return canonical.estimatedSize();
+    }
+
+    private void internConnections(List<TelemetryData.NetworkConnectionData> connections) {
+        if (connections == null) {
+            return;
+        }
+        for (TelemetryData.NetworkConnectionData connection : connections) {
+            connection.setProcessName(intern(connection.getProcessName()));
+            connection.setLocalAddress(intern(connection.getLocalAddress()));
+            connection.setRemoteAddress(intern(connection.getRemoteAddress()));
+            connection.setStatus(intern(connection.getStatus()));
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque entries in fixed-size memory-mapped segment files. Entries are read back in
+ * the order they were appended; the read position survives restarts in a small checkpoint file, and a
+ * segment is deleted once it has been read past. Appends that would need more than {@code maxSegments}
+ * segments are refused.
+ *
+ * <p>Each entry is {@code length, crc32, bytes}. The length is written last, so an entry cut short by a
+ * crash fails its checksum and ends the log on reopening. Writes reach the page cache immediately and the
+ * disk on {@link #flush()}.
+ */
+@Slf4j
+final class SegmentedSpool implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int ENTRY_HEADER = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final MappedByteBuffer checkpoint;
+    private final FileChannel checkpointChannel;
+    // Position of the next entry to read in segments.peekFirst()
+    private int readPosition;
+    private long pendingEntries;
+    private long pendingBytes;
+
+    SegmentedSpool(Path directory, int segmentBytes, int maxSegments) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(2, maxSegments);
+        try {
+            Files.createDirectories(directory);
+            checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+            recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open telemetry spool in " + directory, ex);
+        }
+    }
+
+    /** Appends {@code payload}; false when the spool is full or the entry does not fit a segment. */
+    synchronized boolean append(byte[] payload) {
+        int size = ENTRY_HEADER + payload.length;
+        if (size > segmentBytes) {
+            return false;
+        }
+        Segment writer = segments.peekLast();
+        if (writer == null || segmentBytes - writer.writePosition < size) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            if (writer != null) {
+                writer.buffer.force();
+            }
+            writer = createSegment(writer == null ? checkpointSegment() : writer.id + 1);
+        }
+        int position = writer.writePosition;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        writer.buffer.put(position + ENTRY_HEADER, payload);
+        writer.buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        writer.buffer.putInt(position, payload.length);
+        writer.writePosition += size;
+        pendingEntries++;
+        pendingBytes += size;
+        return true;
+    }
+
+    /** Up to {@code max} of the oldest unread entries, without consuming them. */
+    synchronized List<byte[]> peek(int max) {
+        List<byte[]> entries = new ArrayList<>(Math.min(max, (int) Math.min(pendingEntries, Integer.MAX_VALUE)));
+        Iterator<Segment> iterator = segments.iterator();
+        int position = readPosition;
+        while (entries.size() < max && iterator.hasNext()) {
+            Segment segment = iterator.next();
+            while (entries.size() < max && position < segment.writePosition) {
+                int length = segment.buffer.getInt(position);
+                byte[] payload = new byte[length];
+                segment.buffer.get(position + ENTRY_HEADER, payload);
+                entries.add(payload);
+                position += ENTRY_HEADER + length;
+            }
+            position = 0;
+        }
+        return entries;
+    }
+
+    /** Consumes the {@code count} oldest entries, deleting the segments left behind. */
+    synchronized void advance(int count) {
+        for (int i = 0; i < count && pendingEntries > 0; i++) {
+            Segment segment = segments.peekFirst();
+            while (readPosition >= segment.writePosition) {
+                dropFirstSegment();
+                segment = segments.peekFirst();
+            }
+            int size = ENTRY_HEADER + segment.buffer.getInt(readPosition);
+            readPosition += size;
+            pendingEntries--;
+            pendingBytes -= size;
+        }
+        // Keep the segment being written, even when it has been read to the end
+        while (segments.size() > 1 && readPosition >= segments.peekFirst().writePosition) {
+            dropFirstSegment();
+        }
+        Segment first = segments.peekFirst();
+        checkpoint.putLong(0, first == null ? 0 : (long) first.id << 32 | readPosition);
+    }
+
+    synchronized long pendingEntries() {
+        return pendingEntries;
+    }
+
+    synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    synchronized boolean isEmpty() {
+        return pendingEntries == 0;
+    }
+
+    synchronized void flush() {
+        Segment writer = segments.peekLast();
+        if (writer != null) {
+            writer.buffer.force();
+        }
+        checkpoint.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        for (Segment segment : segments) {
+            closeQuietly(segment.channel);
+        }
+        closeQuietly(checkpointChannel);
+    }
+
+    private void recover() throws IOException {
+        long saved = checkpoint.getLong(0);
+        int savedSegment = (int) (saved >>> 32);
+        int savedPosition = (int) saved;
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            int id = Integer.parseInt(file.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            if (id < savedSegment) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            Segment segment = mapSegment(id, file);
+            segment.writePosition = scanEnd(segment);
+            segments.addLast(segment);
+        }
+
+        // New entries go after the last intact one, so clear whatever a torn write left there
+        Segment last = segments.peekLast();
+        if (last != null) {
+            for (int i = last.writePosition; i < segmentBytes; i++) {
+                if (last.buffer.get(i) != 0) {
+                    last.buffer.put(i, (byte) 0);
+                }
+            }
+        }
+
+        Segment first = segments.peekFirst();
+        readPosition = first != null && first.id == savedSegment ? Math.min(savedPosition, first.writePosition) : 0;
+        int position = readPosition;
+        for (Segment segment : segments) {
+            while (position < segment.writePosition) {
+                int size = ENTRY_HEADER + segment.buffer.getInt(position);
+                pendingEntries++;
+                pendingBytes += size;
+                position += size;
+            }
+            position = 0;
+        }
+        if (pendingEntries > 0) {
+            log.info(" Telemetry spool in {} holds {} entries from a previous run", directory, pendingEntries);
+        }
+    }
+
+    // Walks the entries from the start; the first one that is empty, overruns the segment or fails its
+    // checksum ends the segment
+    private int scanEnd(Segment segment) {
+        int position = 0;
+        CRC32 crc = new CRC32();
+        while (position + ENTRY_HEADER <= segmentBytes) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || position + ENTRY_HEADER + length > segmentBytes) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer.get(position + ENTRY_HEADER, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.buffer.getInt(position + Integer.BYTES)) {
+                log.warn(" Telemetry spool segment {} is torn at byte {}; later entries are discarded", segment.id, position);
+                break;
+            }
+            position += ENTRY_HEADER + length;
+        }
+        return position;
+    }
+
+    private int checkpointSegment() {
+        return Math.max(1, (int) (checkpoint.getLong(0) >>> 32));
+    }
+
+    private Segment createSegment(int id) {
+        try {
+            Segment segment = mapSegment(id, directory.resolve(String.format("%012d%s", id, SEGMENT_SUFFIX)));
+            if (segments.isEmpty()) {
+                readPosition = 0;
+            }
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create telemetry spool segment " + id, ex);
+        }
+    }
+
+    private Segment mapSegment(int id, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+    }
+
+    // The mapping itself is released when the buffer is collected; the file can go now
+    private void dropFirstSegment() {
+        Segment segment = segments.pollFirst();
+        readPosition = 0;
+        closeQuietly(segment.channel);
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException ex) {
+            log.warn(" Could not delete telemetry spool segment {}: {}", segment.file, ex.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        Segment(int id, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryBatchResult;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch variant of {@link TelemetryKafkaConsumer}: takes a whole poll at once so the reports can be
+ * validated together and stored with a single bulk insert.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "telemetry.ingest.batch.enabled", havingValue = "true")
+public class TelemetryBatchKafkaConsumer {
+
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(TelemetryBatchKafkaConsumer.class);
+
+    private final TelemetryService telemetryService;
+    private final TelemetryFailureRouter failureRouter;
+    private final TelemetrySpool spool;
+
+    @KafkaListener(topics = TelemetryKafkaConfig.TELEMETRY_TOPIC, groupId = "sentinel-consumer-group", containerFactory = "kafkaListenerContainerFactory",
+            concurrency = "${telemetry.ingest.concurrency}",
+            batch = "true",
+            properties = {
+                    "max.poll.records=${telemetry.ingest.batch.max-records}",
+                    "fetch.max.wait.ms=${telemetry.ingest.batch.max-wait-ms}",
+                    "fetch.min.bytes=${telemetry.ingest.batch.min-bytes}"
+            })
+    public void onBatch(List<ConsumerRecord<String, TelemetryKafkaMessage>> records) {
+        log.debug(" [Kafka] Receiving batch of {} telemetry records", records.size());
+
+        List<ConsumerRecord<String, TelemetryKafkaMessage>> decoded = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, TelemetryKafkaMessage> record : records) {
+            if (record.value() != null) {
+                decoded.add(record);
+            } else {
+                // Batch listeners receive undecodable records with a null value instead of an error handler call
+                DeserializationException cause = SerializationUtils.getExceptionFromHeader(
+                        record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+                failureRouter.route(record, cause != null ? cause : new IllegalArgumentException("Empty telemetry record"));
+            }
+        }
+
+        decoded.removeIf(spool::divert);
+        if (decoded.isEmpty()) {
+            return;
+        }
+
+        List<TelemetryData> batch = decoded.stream()
+                .map(record -> record.value().toTelemetryData())
+                .toList();
+        TelemetryBatchResult result = telemetryService.processAndSaveTelemetryBatch(batch);
+
+        for (TelemetryBatchResult.Failure failure : result.failures()) {
+            ConsumerRecord<String, TelemetryKafkaMessage> record = decoded.get(failure.index());
+            if (!spool.divertFailed(record, failure.cause())) {
+                failureRouter.route(record, failure.cause());
+            }
+        }
+        log.info(" [Kafka] Stored {} of {} telemetry records", result.saved().size(), records.size());
+    }
+}
@@ -0,0 +1,327 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link TelemetryKafkaMessage}, selected on the wire with the
+ * {@value #FORMAT_HEADER} record header.
+ *
+ * <p>Layout, in order:
+ * <pre>
+ *   magic 0xB1, version (1, 2 or 3)
+ *   agentId, apiKey, hostname                         string
+ *   cpuUsage, ramUsedPercent, diskUsedPercent          double (8 bytes, big-endian IEEE 754)
+ *   ramTotalMb, diskTotalGb, bytesSentSec, bytesRecvSec varlong
+ *   processes            count, then per entry: pid, name, cpu, username
+ *   networkConnections   count, then per entry: pid, processName, localAddress, localPort,
+ *                                               remoteAddress, remotePort, status
+ *   -- version 2 only --
+ *   sequence, baseSequence   nullable varlong (value + 1, 0 meaning null)
+ *   removedProcessPids       count, then pids
+ *   removedConnections       count, then entries as in networkConnections
+ *   -- version 3 only --
+ *   timestamp                nullable varlong, nanoseconds since the epoch
+ * </pre>
+ * Integers are zigzag varints. Counts are stored as {@code size + 1} with 0 meaning null. A string is a
+ * varint tag: 0 for null, 1 for a literal (varint byte length and UTF-8 bytes) that is also appended to the
+ * message's string table, and {@code n >= 2} for entry {@code n - 2} of that table, so user names,
+ * addresses and states repeated across hundreds of rows are written once.
+ */
+public final class TelemetryBinaryCodec {
+
+    public static final String FORMAT_HEADER = "X-Telemetry-Format";
+    public static final String BINARY_FORMAT = "binary";
+
+    static final byte MAGIC = (byte) 0xB1;
+    static final byte VERSION_1 = 1;
+    static final byte VERSION_2 = 2;
+    static final byte VERSION_3 = 3;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private TelemetryBinaryCodec() {
+    }
+
+    /**
+     * Checks the leading magic byte. It can never start a JSON document, which lets a record that was
+     * re-serialized as JSON on the retry path keep decoding even if it still carries the binary header.
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 2 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(TelemetryKafkaMessage message) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION_3);
+
+        out.writeString(message.getAgentId());
+        out.writeString(message.getApiKey());
+        out.writeString(message.getHostname());
+        out.writeDouble(message.getCpuUsage());
+        out.writeDouble(message.getRamUsedPercent());
+        out.writeDouble(message.getDiskUsedPercent());
+        out.writeVarLong(message.getRamTotalMb());
+        out.writeVarLong(message.getDiskTotalGb());
+        out.writeVarLong(message.getBytesSentSec());
+        out.writeVarLong(message.getBytesRecvSec());
+
+        TelemetryData.ProcessData[] processes = message.getProcesses();
+        out.writeCount(processes);
+        if (processes != null) {
+            for (TelemetryData.ProcessData process : processes) {
+                out.writeVarLong(process.getPid());
+                out.writeString(process.getName());
+                out.writeDouble(process.getCpu());
+                out.writeString(process.getUsername());
+            }
+        }
+
+        writeConnections(out, message.getNetworkConnections());
+
+        out.writeNullableVarLong(message.getSequence());
+        out.writeNullableVarLong(message.getBaseSequence());
+        int[] removedPids = message.getRemovedProcessPids();
+        out.writeVarLong(removedPids == null ? 0 : removedPids.length + 1L);
+        if (removedPids != null) {
+            for (int pid : removedPids) {
+                out.writeVarLong(pid);
+            }
+        }
+        writeConnections(out, message.getRemovedConnections());
+        Instant timestamp = message.getTimestamp();
+        out.writeNullableVarLong(timestamp == null ? null
+                : Math.addExact(Math.multiplyExact(timestamp.getEpochSecond(), NANOS_PER_SECOND), timestamp.getNano()));
+        return out.toByteArray();
+    }
+
+    public static TelemetryKafkaMessage decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Not a binary telemetry record");
+        }
+        byte version = data[1];
+        if (version < VERSION_1 || version > VERSION_3) {
+            throw new SerializationException("Unsupported binary telemetry version " + version);
+        }
+
+        try {
+            Reader in = new Reader(data, 2);
+            TelemetryKafkaMessage message = new TelemetryKafkaMessage();
+            message.setAgentId(in.readString());
+            message.setApiKey(in.readString());
+            message.setHostname(in.readString());
+            message.setCpuUsage(in.readDouble());
+            message.setRamUsedPercent(in.readDouble());
+            message.setDiskUsedPercent(in.readDouble());
+            message.setRamTotalMb(in.readVarLong());
+            message.setDiskTotalGb(in.readVarLong());
+            message.setBytesSentSec(in.readVarLong());
+            message.setBytesRecvSec(in.readVarLong());
+
+            int processCount = in.readCount();
+            if (processCount >= 0) {
+                TelemetryData.ProcessData[] processes = new TelemetryData.ProcessData[processCount];
+                for (int i = 0; i < processCount; i++) {
+                    processes[i] = new TelemetryData.ProcessData(
+                            (int) in.readVarLong(), in.readString(), in.readDouble(), in.readString());
+                }
+                message.setProcesses(processes);
+            }
+
+            message.setNetworkConnections(readConnections(in));
+
+            if (version >= VERSION_2) {
+                message.setSequence(in.readNullableVarLong());
+                message.setBaseSequence(in.readNullableVarLong());
+                int removedPidCount = in.readCount();
+                if (removedPidCount >= 0) {
+                    int[] removedPids = new int[removedPidCount];
+                    for (int i = 0; i < removedPidCount; i++) {
+                        removedPids[i] = (int) in.readVarLong();
+                    }
+                    message.setRemovedProcessPids(removedPids);
+                }
+                message.setRemovedConnections(readConnections(in));
+            }
+            if (version >= VERSION_3) {
+                Long timestampNanos = in.readNullableVarLong();
+                message.setTimestamp(timestampNanos == null ? null : Instant.ofEpochSecond(0, timestampNanos));
+            }
+            return message;
+        } catch (IndexOutOfBoundsException ex) {
+            throw new SerializationException("Truncated binary telemetry record", ex);
+        }
+    }
+
+    private static void writeConnections(Writer out, TelemetryData.NetworkConnectionData[] connections) {
+        out.writeCount(connections);
+        if (connections != null) {
+            for (TelemetryData.NetworkConnectionData connection : connections) {
+                out.writeVarLong(connection.getPid());
+                out.writeString(connection.getProcessName());
+                out.writeString(connection.getLocalAddress());
+                out.writeVarLong(connection.getLocalPort());
+                out.writeString(connection.getRemoteAddress());
+                out.writeVarLong(connection.getRemotePort());
+                out.writeString(connection.getStatus());
+            }
+        }
+    }
+
+    private static TelemetryData.NetworkConnectionData[] readConnections(Reader in) {
+        int count = in.readCount();
+        if (count < 0) {
+            return null;
+        }
+        TelemetryData.NetworkConnectionData[] connections = new TelemetryData.NetworkConnectionData[count];
+        for (int i = 0; i < count; i++) {
+            connections[i] = new TelemetryData.NetworkConnectionData(
+                    (int) in.readVarLong(), in.readString(), in.readString(), (int) in.readVarLong(),
+                    in.readString(), (int) in.readVarLong(), in.readString());
+        }
+        return connections;
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[1024];
+        private int size;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[size++] = (byte) zigzag;
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToLongBits(value);
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void writeNullableVarLong(Long value) {
+            writeVarLong(value == null ? 0 : value + 1);
+        }
+
+        void writeCount(Object[] values) {
+            writeVarLong(values == null ? 0 : values.length + 1L);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarLong(index + 2L);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(1);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (shift > 63) {
+                    throw new SerializationException("Malformed varint in binary telemetry record");
+                }
+                byte b = data[position++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        double readDouble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (data[position++] & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        Long readNullableVarLong() {
+            long value = readVarLong();
+            return value == 0 ? null : value - 1;
+        }
+
+        int readCount() {
+            long count = readVarLong() - 1;
+            // Every entry takes at least one byte, so a larger count can only come from a corrupt record
+            if (count < -1 || count > data.length - position) {
+                throw new SerializationException("Invalid entry count in binary telemetry record");
+            }
+            return (int) count;
+        }
+
+        String readString() {
+            long tag = readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag > 1) {
+                return strings.get((int) (tag - 2));
+            }
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > data.length) {
+                throw new SerializationException("Truncated binary telemetry record");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            strings.add(value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Re-injects dead-lettered telemetry into the main topic once the cause has been fixed. Records are
+ * copied byte for byte with their key; failure and retry headers are dropped so they start fresh.
+ * Progress is committed under a dedicated consumer group, so each record is replayed once. One call
+ * replays at most {@code telemetry.ingest.dlt.replay-max-records}; each poll is sent without waiting per
+ * record and committed once all of its sends are acknowledged.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TelemetryDeadLetterReplayer {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+    private static final int MAX_POLL_RECORDS = 500;
+
+    private final KafkaProperties kafkaProperties;
+    private final KafkaTemplate<Object, Object> telemetryKafkaTemplate;
+
+    @Value("${telemetry.ingest.dlt.replay-group-id}")
+    private String replayGroupId;
+
+    @Value("${telemetry.ingest.dlt.replay-max-records}")
+    private int replayMaxRecords;
+
+    public synchronized int replay(int requestedRecords) {
+        int maxRecords = Math.min(Math.max(requestedRecords, 1), replayMaxRecords);
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(null);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, replayGroupId);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.min(maxRecords, MAX_POLL_RECORDS));
+
+        int replayed = 0;
+        try (Consumer<byte[], byte[]> consumer = new KafkaConsumer<>(properties, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
+            List<TopicPartition> partitions = consumer.partitionsFor(TelemetryKafkaConfig.DEAD_LETTER_TOPIC).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+
+            while (replayed < maxRecords) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                List<CompletableFuture<?>> sends = new ArrayList<>(records.count());
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    if (replayed >= maxRecords) {
+                        break;
+                    }
+                    sends.add(telemetryKafkaTemplate.send(toTelemetryRecord(record)));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get();
+                consumer.commitSync(offsets);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dead-letter replay interrupted after " + replayed + " records", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Dead-letter replay failed after " + replayed + " records", ex.getCause());
+        }
+
+        log.info(" [Kafka] Replayed {} records from {}", replayed, TelemetryKafkaConfig.DEAD_LETTER_TOPIC);
+        return replayed;
+    }
+
+    private ProducerRecord<Object, Object> toTelemetryRecord(ConsumerRecord<byte[], byte[]> record) {
+        RecordHeaders headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            String key = header.key();
+            if (!key.startsWith(KafkaHeaders.PREFIX) && !key.startsWith("telemetry-retry-")) {
+                headers.add(header);
+            }
+        }
+        return new ProducerRecord<>(TelemetryKafkaConfig.TELEMETRY_TOPIC, null, record.key(), record.value(), headers);
+    }
+}
@@ -0,0 +1,141 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer.HeaderNames.HeadersToAdd;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Forwards telemetry records that could not be stored. Transient failures (the database being slow or
+ * unreachable) go to the retry topic with an exponentially growing delay; everything else, and records
+ * that ran out of attempts, go to the dead-letter topic with the failure reason in the headers.
+ * Records keep their key, so a retried agent stays on one partition.
+ */
+@Slf4j
+@Component
+public class TelemetryFailureRouter {
+
+    public static final String ATTEMPT_HEADER = "telemetry-retry-attempt";
+    public static final String NOT_BEFORE_HEADER = "telemetry-retry-not-before";
+
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final double multiplier;
+    private final long maxDelayMs;
+    private final DeadLetterPublishingRecoverer recoverer;
+    private final MeterRegistry meterRegistry;
+
+    public TelemetryFailureRouter(KafkaTemplate<Object, Object> telemetryKafkaTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${telemetry.ingest.retry.max-attempts}") int maxAttempts,
+                                  @Value("${telemetry.ingest.retry.initial-delay-ms}") long initialDelayMs,
+                                  @Value("${telemetry.ingest.retry.multiplier}") double multiplier,
+                                  @Value("${telemetry.ingest.retry.max-delay-ms}") long maxDelayMs) {
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMs = initialDelayMs;
+        this.multiplier = multiplier;
+        this.maxDelayMs = maxDelayMs;
+        this.meterRegistry = meterRegistry;
+        this.recoverer = new DeadLetterPublishingRecoverer(telemetryKafkaTemplate, this::destination);
+        this.recoverer.excludeHeader(HeadersToAdd.EX_STACKTRACE);
+        this.recoverer.addHeadersFunction(this::retryHeaders);
+    }
+
+    public void route(ConsumerRecord<?, ?> record, Exception cause) {
+        Throwable reason = unwrap(cause);
+        boolean retry = shouldRetry(record, cause);
+        if (retry) {
+            log.warn(" Telemetry record {}-{}@{} will be retried (attempt {}): {}", record.topic(), record.partition(),
+                    record.offset(), attemptOf(record) + 1, reason.getMessage());
+        } else {
+            log.warn(" Telemetry record {}-{}@{} sent to {}: {}: {}", record.topic(), record.partition(),
+                    record.offset(), TelemetryKafkaConfig.DEAD_LETTER_TOPIC, reason.getClass().getSimpleName(), reason.getMessage());
+        }
+        Counter.builder("telemetry.ingest.failures")
+                .description("Telemetry records that could not be stored, by where they were sent")
+                .tag("destination", retry ? "retry" : "dead-letter")
+                .tag("exception", reason.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+        recoverer.accept(record, cause);
+    }
+
+    TopicPartition destination(ConsumerRecord<?, ?> record, Exception cause) {
+        // A negative partition lets the producer pick one from the key
+        return new TopicPartition(shouldRetry(record, cause) ? TelemetryKafkaConfig.RETRY_TOPIC : TelemetryKafkaConfig.DEAD_LETTER_TOPIC, -1);
+    }
+
+    Headers retryHeaders(ConsumerRecord<?, ?> record, Exception cause) {
+        RecordHeaders headers = new RecordHeaders();
+        if (shouldRetry(record, cause)) {
+            int attempt = attemptOf(record) + 1;
+            long notBefore = System.currentTimeMillis() + delayFor(attempt);
+            headers.add(ATTEMPT_HEADER, Integer.toString(attempt).getBytes(StandardCharsets.UTF_8));
+            headers.add(NOT_BEFORE_HEADER, Long.toString(notBefore).getBytes(StandardCharsets.UTF_8));
+        }
+        return headers;
+    }
+
+    long delayFor(int attempt) {
+        double delay = initialDelayMs * Math.pow(multiplier, attempt - 1);
+        return (long) Math.min(delay, maxDelayMs);
+    }
+
+    boolean shouldRetry(ConsumerRecord<?, ?> record, Exception cause) {
+        return attemptOf(record) < maxAttempts && isTransient(cause);
+    }
+
+    static int attemptOf(ConsumerRecord<?, ?> record) {
+        return (int) longHeader(record, ATTEMPT_HEADER, 0);
+    }
+
+    static long notBeforeOf(ConsumerRecord<?, ?> record) {
+        return longHeader(record, NOT_BEFORE_HEADER, 0);
+    }
+
+    static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof MongoTimeoutException
+                    || cause instanceof MongoSocketException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long longHeader(ConsumerRecord<?, ?> record, String name, long defaultValue) {
+        Header header = record.headers().lastHeader(name);
+        if (header == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static Throwable unwrap(Exception cause) {
+        return cause instanceof ListenerExecutionFailedException && cause.getCause() != null ? cause.getCause() : cause;
+    }
+}
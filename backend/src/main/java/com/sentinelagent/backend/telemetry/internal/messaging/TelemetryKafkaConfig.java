@@ -0,0 +1,109 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Declares the telemetry topics so they have enough partitions for the configured listener concurrency.
+ * Agents key their records by agent id, so each agent stays on one partition and keeps its order.
+ */
+@Configuration
+public class TelemetryKafkaConfig {
+
+    public static final String TELEMETRY_TOPIC = "agent-data";
+    public static final String RETRY_TOPIC = "agent-data-retry";
+    public static final String DEAD_LETTER_TOPIC = "agent-data-dlt";
+
+    @Bean
+    public NewTopic agentDataTopic(@Value("${telemetry.ingest.topic.partitions}") int partitions,
+                                   @Value("${telemetry.ingest.topic.replication-factor}") short replicationFactor) {
+        return TopicBuilder.name(TELEMETRY_TOPIC)
+                .partitions(partitions)
+                .replicas(replicationFactor)
+                .build();
+    }
+
+    @Bean
+    public NewTopic agentDataRetryTopic(@Value("${telemetry.ingest.topic.partitions}") int partitions,
+                                        @Value("${telemetry.ingest.topic.replication-factor}") short replicationFactor) {
+        return TopicBuilder.name(RETRY_TOPIC)
+                .partitions(partitions)
+                .replicas(replicationFactor)
+                .build();
+    }
+
+    @Bean
+    public NewTopic agentDataDeadLetterTopic(@Value("${telemetry.ingest.topic.partitions}") int partitions,
+                                             @Value("${telemetry.ingest.topic.replication-factor}") short replicationFactor) {
+        return TopicBuilder.name(DEAD_LETTER_TOPIC)
+                .partitions(partitions)
+                .replicas(replicationFactor)
+                .build();
+    }
+
+    /**
+     * Template used to forward failed records. Values are either decoded messages (written back as JSON)
+     * or the raw bytes of records that could not be decoded at all.
+     */
+    @Bean
+    public KafkaTemplate<Object, Object> telemetryKafkaTemplate(KafkaProperties kafkaProperties) {
+        Map<Class<?>, Serializer<?>> keySerializers = new LinkedHashMap<>();
+        keySerializers.put(byte[].class, new ByteArraySerializer());
+        keySerializers.put(String.class, new StringSerializer());
+
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.setAddTypeInfo(false);
+        Map<Class<?>, Serializer<?>> valueSerializers = new LinkedHashMap<>();
+        valueSerializers.put(byte[].class, new ByteArraySerializer());
+        valueSerializers.put(Object.class, jsonSerializer);
+
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(null),
+                new DelegatingByTypeSerializer(keySerializers),
+                new DelegatingByTypeSerializer(valueSerializers, true)));
+    }
+
+    /**
+     * Handles what the listeners cannot: undecodable records go straight to the dead-letter topic, and if
+     * forwarding a failed record itself fails the record is redelivered until Kafka accepts it.
+     */
+    @Bean
+    public DefaultErrorHandler telemetryErrorHandler(TelemetryFailureRouter failureRouter,
+                                                     @Value("${telemetry.ingest.retry.initial-delay-ms}") long redeliveryIntervalMs) {
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(failureRouter::route,
+                new FixedBackOff(redeliveryIntervalMs, FixedBackOff.UNLIMITED_ATTEMPTS));
+        errorHandler.setLogLevel(KafkaException.Level.DEBUG);
+        return errorHandler;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> telemetryRetryContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
@@ -3,23 +3,35 @@ package com.sentinelagent.backend.telemetry.internal.messaging;
 import com.sentinelagent.backend.telemetry.internal.service.TelemetryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
 @Component
 @Slf4j
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "telemetry.ingest.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class TelemetryKafkaConsumer {
 
     private final TelemetryService telemetryService;
+    private final TelemetryFailureRouter failureRouter;
+    private final TelemetrySpool spool;
 
-    @KafkaListener(topics = "agent-data", groupId = "sentinel-consumer-group", containerFactory = "kafkaListenerContainerFactory")
-    public void onMessage(TelemetryKafkaMessage message) {
+    @KafkaListener(topics = TelemetryKafkaConfig.TELEMETRY_TOPIC, groupId = "sentinel-consumer-group", containerFactory = "kafkaListenerContainerFactory",
+            concurrency = "${telemetry.ingest.concurrency}")
+    public void onMessage(ConsumerRecord<String, TelemetryKafkaMessage> record) {
+        TelemetryKafkaMessage message = record.value();
         log.info(" [Kafka] Receiving new data from Agent ID: {}", message.getAgentId());
+        if (spool.divert(record)) {
+            return;
+        }
         try {
             telemetryService.processAndSaveTelemetry(message.toTelemetryData());
         } catch (Exception ex) {
-            log.error(" Error processing Kafka message for Agent: {}", message.getAgentId(), ex);
+            if (!spool.divertFailed(record, ex)) {
+                failureRouter.route(record, ex);
+            }
         }
     }
 }
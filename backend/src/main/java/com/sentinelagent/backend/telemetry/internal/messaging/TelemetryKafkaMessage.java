@@ -3,6 +3,8 @@ package com.sentinelagent.backend.telemetry.internal.messaging;
 import com.sentinelagent.backend.telemetry.dto.TelemetryData;
 import lombok.Data;
 
+import java.time.Instant;
+
 @Data
 public class TelemetryKafkaMessage {
     private String agentId;
@@ -17,6 +19,12 @@ public class TelemetryKafkaMessage {
     private long bytesRecvSec;
     private TelemetryData.ProcessData[] processes;
     private TelemetryData.NetworkConnectionData[] networkConnections;
+    private Long sequence;
+    private Long baseSequence;
+    private int[] removedProcessPids;
+    private TelemetryData.NetworkConnectionData[] removedConnections;
+    // Agent clock time of the sample; only used to recognise redeliveries
+    private Instant timestamp;
 
     public TelemetryData toTelemetryData() {
         return TelemetryData.builder()
@@ -30,8 +38,13 @@ public class TelemetryKafkaMessage {
                 .diskTotalGb(diskTotalGb)
                 .bytesSentSec(bytesSentSec)
                 .bytesRecvSec(bytesRecvSec)
-                .processes(processes != null ? java.util.List.of(processes) : null)
-                .networkConnections(networkConnections != null ? java.util.List.of(networkConnections) : null)
+                .processes(processes != null ? java.util.Arrays.asList(processes) : null)
+                .networkConnections(networkConnections != null ? java.util.Arrays.asList(networkConnections) : null)
+                .sequence(sequence)
+                .baseSequence(baseSequence)
+                .removedProcessPids(removedProcessPids != null ? java.util.Arrays.stream(removedProcessPids).boxed().toList() : null)
+                .removedConnections(removedConnections != null ? java.util.Arrays.asList(removedConnections) : null)
+                .sentAt(timestamp)
                 .build();
     }
 }
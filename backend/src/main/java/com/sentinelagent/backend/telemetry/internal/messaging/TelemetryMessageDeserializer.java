@@ -0,0 +1,50 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Value deserializer for the telemetry topics. Records flagged with
+ * {@code X-Telemetry-Format: binary} are decoded with {@link TelemetryBinaryCodec}; everything else goes
+ * through the regular {@link JsonDeserializer}, configured from the same {@code spring.json.*} properties.
+ */
+public class TelemetryMessageDeserializer implements Deserializer<TelemetryKafkaMessage> {
+
+    private static final byte[] BINARY_FORMAT = TelemetryBinaryCodec.BINARY_FORMAT.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonDeserializer<TelemetryKafkaMessage> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public TelemetryKafkaMessage deserialize(String topic, byte[] data) {
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public TelemetryKafkaMessage deserialize(String topic, Headers headers, byte[] data) {
+        if (isBinaryFormat(headers) && TelemetryBinaryCodec.isBinary(data)) {
+            return TelemetryBinaryCodec.decode(data);
+        }
+        return json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+
+    private static boolean isBinaryFormat(Headers headers) {
+        Header header = headers != null ? headers.lastHeader(TelemetryBinaryCodec.FORMAT_HEADER) : null;
+        return header != null && Arrays.equals(header.value(), BINARY_FORMAT);
+    }
+}
@@ -0,0 +1,50 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Replays records from the retry topic once their backoff has elapsed. Waiting pauses every retry
+ * partition assigned to this consumer, not only the one holding the record; the main topic is read by
+ * its own containers and keeps flowing while the database recovers.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TelemetryRetryKafkaConsumer {
+
+    private final TelemetryService telemetryService;
+    private final TelemetryFailureRouter failureRouter;
+    private final TelemetrySpool spool;
+
+    @KafkaListener(topics = TelemetryKafkaConfig.RETRY_TOPIC, groupId = "sentinel-consumer-group", containerFactory = "telemetryRetryContainerFactory")
+    public void onRetry(ConsumerRecord<String, TelemetryKafkaMessage> record, Acknowledgment ack) {
+        long wait = TelemetryFailureRouter.notBeforeOf(record) - System.currentTimeMillis();
+        if (wait > 0) {
+            ack.nack(Duration.ofMillis(wait));
+            return;
+        }
+
+        log.debug(" [Kafka] Retrying telemetry from Agent ID: {} (attempt {})",
+                record.value().getAgentId(), TelemetryFailureRouter.attemptOf(record));
+        if (spool.divert(record)) {
+            ack.acknowledge();
+            return;
+        }
+        try {
+            telemetryService.processAndSaveTelemetry(record.value().toTelemetryData());
+        } catch (Exception ex) {
+            if (!spool.divertFailed(record, ex)) {
+                failureRouter.route(record, ex);
+            }
+        }
+        ack.acknowledge();
+    }
+}
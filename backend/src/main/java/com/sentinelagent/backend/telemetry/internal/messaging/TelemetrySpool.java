@@ -0,0 +1,132 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Local holding area for telemetry the database cannot take right now. A record whose store fails with a
+ * transient error is appended here instead of going to the retry topic, and from then on every record is
+ * appended until {@link TelemetrySpoolReplayer} has drained the spool into agent_reports. Consumers therefore
+ * never wait on an unavailable database, and samples are stored in the order they arrived. When the spool is
+ * disabled or full, records take the retry topic as before.
+ *
+ * <p>Kafka offsets are committed once a record is spooled, so the spool directory must survive restarts.
+ */
+@Slf4j
+@Component
+public class TelemetrySpool {
+
+    private final SegmentedSpool spool;
+    private final Counter appended;
+    private final Counter rejected;
+    private final Counter replayed;
+
+    @Autowired
+    public TelemetrySpool(@Value("${telemetry.spool.enabled}") boolean enabled,
+                          @Value("${telemetry.spool.directory}") String directory,
+                          @Value("${telemetry.spool.segment-bytes}") int segmentBytes,
+                          @Value("${telemetry.spool.max-bytes}") long maxBytes,
+                          MeterRegistry meterRegistry) {
+        this(enabled ? new SegmentedSpool(Path.of(directory), segmentBytes, (int) (maxBytes / segmentBytes)) : null, meterRegistry);
+    }
+
+    TelemetrySpool(SegmentedSpool spool, MeterRegistry meterRegistry) {
+        this.spool = spool;
+        this.appended = Counter.builder("telemetry.spool.appended").register(meterRegistry);
+        this.rejected = Counter.builder("telemetry.spool.rejected").register(meterRegistry);
+        this.replayed = Counter.builder("telemetry.spool.replayed").register(meterRegistry);
+        Gauge.builder("telemetry.spool.depth", this, TelemetrySpool::depth).register(meterRegistry);
+        Gauge.builder("telemetry.spool.bytes", this, s -> s.spool != null ? s.spool.pendingBytes() : 0).register(meterRegistry);
+    }
+
+    /** Spools {@code record} if earlier records are still waiting, so it is not stored ahead of them. */
+    public boolean divert(ConsumerRecord<String, TelemetryKafkaMessage> record) {
+        return spool != null && !spool.isEmpty() && append(record);
+    }
+
+    /** Spools {@code record} if storing it failed because the database is unavailable. */
+    public boolean divertFailed(ConsumerRecord<String, TelemetryKafkaMessage> record, Exception cause) {
+        if (spool == null || !TelemetryFailureRouter.isTransient(cause)) {
+            return false;
+        }
+        boolean wasEmpty = spool.isEmpty();
+        boolean spooled = append(record);
+        if (spooled && wasEmpty) {
+            log.warn(" Telemetry store unavailable, spooling ingest until it recovers: {}", cause.getMessage());
+        }
+        return spooled;
+    }
+
+    long depth() {
+        return spool != null ? spool.pendingEntries() : 0;
+    }
+
+    List<Spooled> peek(int max) {
+        if (spool == null) {
+            return List.of();
+        }
+        return spool.peek(max).stream().map(TelemetrySpool::decode).toList();
+    }
+
+    void advance(int count) {
+        spool.advance(count);
+        replayed.increment(count);
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.spool.flush-interval-ms}")
+    public void flush() {
+        if (spool != null) {
+            spool.flush();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    private boolean append(ConsumerRecord<String, TelemetryKafkaMessage> record) {
+        byte[] message = TelemetryBinaryCodec.encode(record.value());
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + message.length)
+                .putInt(record.partition())
+                .putLong(record.offset())
+                .put(message);
+        if (spool.append(entry.array())) {
+            appended.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private static Spooled decode(byte[] entry) {
+        ByteBuffer buffer = ByteBuffer.wrap(entry);
+        int partition = buffer.getInt();
+        long offset = buffer.getLong();
+        byte[] message = new byte[buffer.remaining()];
+        buffer.get(message);
+        return new Spooled(partition, offset, TelemetryBinaryCodec.decode(message));
+    }
+
+    /** A spooled message and where it was read from, for dead-lettering it if it cannot be stored at all. */
+    record Spooled(int partition, long offset, TelemetryKafkaMessage message) {
+
+        ConsumerRecord<String, TelemetryKafkaMessage> toRecord() {
+            return new ConsumerRecord<>(TelemetryKafkaConfig.TELEMETRY_TOPIC, partition, offset, message.getAgentId(), message);
+        }
+    }
+}
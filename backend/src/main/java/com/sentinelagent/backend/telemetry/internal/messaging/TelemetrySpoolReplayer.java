@@ -0,0 +1,64 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryBatchResult;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drains {@link TelemetrySpool} into agent_reports, oldest first, one bulk insert per chunk. A chunk is
+ * consumed only once the database has taken it; if any of it fails transiently the whole chunk is tried
+ * again on the next run, and the samples already stored are recognised as duplicates. Samples rejected
+ * for any other reason go to the dead-letter topic, as they would from the consumer.
+ *
+ * <p>Samples are replayed in the order they were spooled, which keeps each agent's own order. Delta samples
+ * expand against the last snapshot that was actually stored, since a failed write never advances it, so a
+ * delta spooled after its write failed still gets its complete lists. A delta whose base was lost anyway
+ * (for instance a record routed to the dead-letter topic) is stored with its metrics only and the agent is
+ * asked for a full snapshot.
+ */
+@Slf4j
+@Component
+public class TelemetrySpoolReplayer {
+
+    private final TelemetrySpool spool;
+    private final TelemetryService telemetryService;
+    private final TelemetryFailureRouter failureRouter;
+    private final int chunkSize;
+
+    public TelemetrySpoolReplayer(TelemetrySpool spool, TelemetryService telemetryService, TelemetryFailureRouter failureRouter,
+                                  @Value("${telemetry.spool.replay-chunk-size}") int chunkSize) {
+        this.spool = spool;
+        this.telemetryService = telemetryService;
+        this.failureRouter = failureRouter;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.spool.replay-interval-ms}")
+    public void replay() {
+        int stored = 0;
+        List<TelemetrySpool.Spooled> chunk;
+        while (!(chunk = spool.peek(chunkSize)).isEmpty()) {
+            TelemetryBatchResult result = telemetryService.processAndSaveTelemetryBatch(chunk.stream()
+                    .map(spooled -> spooled.message().toTelemetryData())
+                    .toList());
+
+            if (result.failures().stream().anyMatch(failure -> TelemetryFailureRouter.isTransient(failure.cause()))) {
+                log.debug(" Telemetry store still unavailable, {} records remain spooled", spool.depth());
+                break;
+            }
+            for (TelemetryBatchResult.Failure failure : result.failures()) {
+                failureRouter.route(chunk.get(failure.index()).toRecord(), failure.cause());
+            }
+            spool.advance(chunk.size());
+            stored += result.saved().size();
+        }
+        if (stored > 0) {
+            log.info(" Replayed {} spooled telemetry records, {} remain", stored, spool.depth());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricWindowSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomMetricReportRepository {
+
+    /**
+     * Inserts all documents in one unordered bulk write. Documents without an id get one assigned
+     * before the write; the returned list holds the per-document errors (empty when all were stored).
+     */
+    List<BulkWriteError> insertUnordered(List<MetricReportDocument> documents);
+
+    /**
+     * Averages, first and last values of one agent's reports strictly between {@code from} and {@code to},
+     * grouped in the database; empty when there are none.
+     */
+    Optional<MetricWindowSummary> summarize(String agentId, LocalDateTime from, LocalDateTime to);
+}
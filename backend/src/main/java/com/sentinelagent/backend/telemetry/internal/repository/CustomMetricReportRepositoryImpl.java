@@ -0,0 +1,67 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricWindowSummary;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class CustomMetricReportRepositoryImpl implements CustomMetricReportRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<BulkWriteError> insertUnordered(List<MetricReportDocument> documents) {
+        if (documents.isEmpty()) {
+            return List.of();
+        }
+
+        for (MetricReportDocument document : documents) {
+            if (document.getId() == null) {
+                document.setId(ObjectId.get().toHexString());
+            }
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MetricReportDocument.class)
+                    .insert(documents)
+                    .execute();
+            return List.of();
+        } catch (BulkOperationException ex) {
+            return ex.getErrors();
+        }
+    }
+
+    @Override
+    public Optional<MetricWindowSummary> summarize(String agentId, LocalDateTime from, LocalDateTime to) {
+        // Same bounds as the derived ...Between queries; the sort makes $first/$last the oldest and newest report
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("agentId").is(agentId).and("receivedAt").gt(from).lt(to)),
+                Aggregation.sort(Sort.Direction.ASC, "receivedAt"),
+                Aggregation.group()
+                        .count().as("sampleCount")
+                        .avg("cpuUsage").as("avgCpuUsage")
+                        .avg("ramUsedPercent").as("avgRamUsedPercent")
+                        .avg("bytesSentSec").as("avgBytesSentSec")
+                        .avg("bytesRecvSec").as("avgBytesRecvSec")
+                        .first("cpuUsage").as("firstCpuUsage")
+                        .first("ramUsedPercent").as("firstRamUsedPercent")
+                        .last("cpuUsage").as("lastCpuUsage")
+                        .last("ramUsedPercent").as("lastRamUsedPercent"));
+
+        return Optional.ofNullable(mongoTemplate
+                .aggregate(aggregation, MetricReportDocument.class, MetricWindowSummary.class)
+                .getUniqueMappedResult());
+    }
+}
@@ -0,0 +1,138 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional dictionary-encoded layout for agent_reports. When enabled, each stored report lists its distinct
+ * process, user, state and address strings once in {@code strings}, and its process and connection entries
+ * refer to them by index. Values such as "root", "ESTABLISHED" or the host's own address then appear once per
+ * report rather than once per row. Reports in either layout are decoded on read, so the setting can change
+ * at any time and the rest of the code only ever sees plain documents.
+ */
+@Component
+public class MetricReportDictionaryEncoding implements BeforeConvertCallback<MetricReportDocument>,
+        AfterConvertCallback<MetricReportDocument>, AfterSaveCallback<MetricReportDocument> {
+
+    private final boolean enabled;
+
+    public MetricReportDictionaryEncoding(@Value("${telemetry.storage.dictionary-encoding}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Encodes a copy: the batch path keeps using the documents it passed to the bulk insert
+    @Override
+    public MetricReportDocument onBeforeConvert(MetricReportDocument entity, String collection) {
+        return enabled ? encode(entity) : entity;
+    }
+
+    @Override
+    public MetricReportDocument onAfterConvert(MetricReportDocument entity, Document document, String collection) {
+        return decode(entity);
+    }
+
+    // save() returns the instance that was written, which is the encoded copy
+    @Override
+    public MetricReportDocument onAfterSave(MetricReportDocument entity, Document document, String collection) {
+        return decode(entity);
+    }
+
+    static MetricReportDocument encode(MetricReportDocument document) {
+        if (document.getStrings() != null) {
+            return document;
+        }
+        Map<String, Integer> table = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        List<MetricReportDocument.ProcessDocument> processes = null;
+        if (document.getProcesses() != null) {
+            processes = new ArrayList<>(document.getProcesses().size());
+            for (MetricReportDocument.ProcessDocument process : document.getProcesses()) {
+                processes.add(MetricReportDocument.ProcessDocument.builder()
+                        .pid(process.getPid())
+                        .cpuUsage(process.getCpuUsage())
+                        .nameRef(ref(process.getName(), table, strings))
+                        .usernameRef(ref(process.getUsername(), table, strings))
+                        .build());
+            }
+        }
+
+        List<MetricReportDocument.NetworkConnectionDocument> connections = null;
+        if (document.getNetworkConnections() != null) {
+            connections = new ArrayList<>(document.getNetworkConnections().size());
+            for (MetricReportDocument.NetworkConnectionDocument connection : document.getNetworkConnections()) {
+                connections.add(MetricReportDocument.NetworkConnectionDocument.builder()
+                        .pid(connection.getPid())
+                        .localPort(connection.getLocalPort())
+                        .remotePort(connection.getRemotePort())
+                        .localAddressRef(ref(connection.getLocalAddress(), table, strings))
+                        .remoteAddressRef(ref(connection.getRemoteAddress(), table, strings))
+                        .statusRef(ref(connection.getStatus(), table, strings))
+                        .processNameRef(ref(connection.getProcessName(), table, strings))
+                        .build());
+            }
+        }
+
+        return document.toBuilder()
+                .processes(processes)
+                .networkConnections(connections)
+                .strings(strings)
+                .build();
+    }
+
+    static MetricReportDocument decode(MetricReportDocument document) {
+        List<String> strings = document.getStrings();
+        if (strings == null) {
+            return document;
+        }
+        if (document.getProcesses() != null) {
+            for (MetricReportDocument.ProcessDocument process : document.getProcesses()) {
+                process.setName(lookup(strings, process.getNameRef()));
+                process.setUsername(lookup(strings, process.getUsernameRef()));
+                process.setNameRef(null);
+                process.setUsernameRef(null);
+            }
+        }
+        if (document.getNetworkConnections() != null) {
+            for (MetricReportDocument.NetworkConnectionDocument connection : document.getNetworkConnections()) {
+                connection.setLocalAddress(lookup(strings, connection.getLocalAddressRef()));
+                connection.setRemoteAddress(lookup(strings, connection.getRemoteAddressRef()));
+                connection.setStatus(lookup(strings, connection.getStatusRef()));
+                connection.setProcessName(lookup(strings, connection.getProcessNameRef()));
+                connection.setLocalAddressRef(null);
+                connection.setRemoteAddressRef(null);
+                connection.setStatusRef(null);
+                connection.setProcessNameRef(null);
+            }
+        }
+        document.setStrings(null);
+        return document;
+    }
+
+    private static Integer ref(String value, Map<String, Integer> table, List<String> strings) {
+        if (value == null) {
+            return null;
+        }
+        Integer index = table.get(value);
+        if (index == null) {
+            index = strings.size();
+            table.put(value, index);
+            strings.add(value);
+        }
+        return index;
+    }
+
+    private static String lookup(List<String> strings, Integer index) {
+        return index != null ? strings.get(index) : null;
+    }
+}
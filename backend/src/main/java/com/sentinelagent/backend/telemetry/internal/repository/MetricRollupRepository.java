@@ -0,0 +1,90 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument.MetricStats;
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes the per-resolution rollup collections. Writes are increments: each document passed
+ * to {@link #upsertAll} holds the samples seen since the last flush and is folded into the stored bucket.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MetricRollupRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    public void upsertAll(RollupResolution resolution, Collection<MetricRollupDocument> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                MetricRollupDocument.class, resolution.getCollection());
+        for (MetricRollupDocument increment : increments) {
+            String id = MetricRollupDocument.idOf(increment.getAgentId(), increment.getBucketStart());
+            bulk.upsert(Query.query(Criteria.where("_id").is(id)), toUpdate(increment));
+        }
+        bulk.execute();
+    }
+
+    public List<MetricRollupDocument> findSeries(RollupResolution resolution, String agentId,
+                                                 LocalDateTime from, LocalDateTime to) {
+        Query query = Query.query(Criteria.where("agentId").is(agentId).and("bucketStart").gte(from).lte(to))
+                .with(Sort.by(Sort.Direction.ASC, "bucketStart"));
+        return mongoTemplate.find(query, MetricRollupDocument.class, resolution.getCollection());
+    }
+
+    // A pipeline update, so "last" can be kept only when the increment is newer than what is stored:
+    // increments can arrive out of order after a failed flush or a redelivered record.
+    private AggregationUpdate toUpdate(MetricRollupDocument increment) {
+        Object lastSampleAt = toMongo(increment.getLastSampleAt());
+        Document newer = new Document("$gte", List.of(lastSampleAt, new Document("$ifNull", List.of("$lastSampleAt", lastSampleAt))));
+
+        Document set = new Document()
+                .append("agentId", new Document("$literal", increment.getAgentId()))
+                .append("bucketStart", toMongo(increment.getBucketStart()))
+                .append("sampleCount", add("$sampleCount", increment.getSampleCount()))
+                .append("cpuUsage", merge("cpuUsage", increment.getCpuUsage(), newer))
+                .append("ramUsedPercent", merge("ramUsedPercent", increment.getRamUsedPercent(), newer))
+                .append("diskUsedPercent", merge("diskUsedPercent", increment.getDiskUsedPercent(), newer))
+                .append("bytesSentSec", merge("bytesSentSec", increment.getBytesSentSec(), newer))
+                .append("bytesRecvSec", merge("bytesRecvSec", increment.getBytesRecvSec(), newer))
+                .append("lastSampleAt", new Document("$max", List.of("$lastSampleAt", lastSampleAt)));
+
+        AggregationOperation stage = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(stage));
+    }
+
+    private static Document merge(String field, MetricStats stats, Document newer) {
+        String path = "$" + field + ".";
+        return new Document()
+                .append("min", new Document("$min", List.of(path + "min", stats.getMin())))
+                .append("max", new Document("$max", List.of(path + "max", stats.getMax())))
+                .append("sum", add(path + "sum", stats.getSum()))
+                .append("last", new Document("$cond", List.of(newer, stats.getLast(), path + "last")));
+    }
+
+    private static Document add(String path, Object value) {
+        return new Document("$add", List.of(new Document("$ifNull", List.of(path, 0)), value));
+    }
+
+    // The stage is passed through unmapped, so convert dates the same way mapped writes do.
+    private Object toMongo(LocalDateTime value) {
+        return mongoTemplate.getConverter().convertToMongoType(value);
+    }
+}
@@ -1,13 +1,18 @@
 package com.sentinelagent.backend.telemetry.internal.repository;
 
 import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricSample;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface SpringDataMetricReportRepository extends MongoRepository<MetricReportDocument, String> {
+public interface SpringDataMetricReportRepository extends MongoRepository<MetricReportDocument, String>,
+        CustomMetricReportRepository {
     List<MetricReportDocument> findByAgentId(String agentId);
 
     List<MetricReportDocument> findByHostname(String hostname);
@@ -17,5 +22,18 @@ public interface SpringDataMetricReportRepository extends MongoRepository<Metric
     List<MetricReportDocument> findByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(String agentId,
             LocalDateTime start, LocalDateTime end);
 
+    /** Same range with only the scalar metrics; the process and connection lists are never read. */
+    @Query(fields = "{ 'agentId': 1, 'hostname': 1, 'cpuUsage': 1, 'ramUsedPercent': 1, 'ramTotalMb': 1, "
+            + "'diskUsedPercent': 1, 'diskTotalGb': 1, 'bytesSentSec': 1, 'bytesRecvSec': 1, 'receivedAt': 1 }")
+    List<MetricSample> findSamplesByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(String agentId,
+            LocalDateTime start, LocalDateTime end);
+
+    /** Same range as above, read lazily from a cursor; the caller must close the stream. */
+    @Meta(cursorBatchSize = 500)
+    Stream<MetricReportDocument> streamByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(String agentId,
+            LocalDateTime start, LocalDateTime end);
+
     Optional<MetricReportDocument> findTopByAgentIdOrderByReceivedAtDesc(String agentId);
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
 }
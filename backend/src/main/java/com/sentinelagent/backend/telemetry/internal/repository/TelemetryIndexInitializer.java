@@ -0,0 +1,123 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Creates the (agentId, receivedAt) index behind the per-agent history and latest-report queries, and
+ * drops the single-field indexes it replaces, plus the unique index that rejects redelivered samples by
+ * idempotency key. Then it creates the (agentId, bucketStart) index of each rollup collection. Last, it
+ * brings each tier's TTL index in line with {@link TelemetryRetentionPolicy}. Index annotations are not
+ * applied automatically, so this runs on every start; all steps are no-ops once the collections are migrated.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TelemetryIndexInitializer implements CommandLineRunner {
+
+    private static final Set<String> LEGACY_SINGLE_FIELD_INDEXES = Set.of("agentId", "receivedAt");
+    private static final String TTL_INDEX_SUFFIX = "_ttl";
+
+    private final MongoTemplate mongoTemplate;
+    private final TelemetryRetentionPolicy retentionPolicy;
+
+    @Override
+    public void run(String... args) {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(MetricReportDocument.class);
+            indexOps.createIndex(new Index()
+                    .on("agentId", Sort.Direction.ASC)
+                    .on("receivedAt", Sort.Direction.DESC)
+                    .named(MetricReportDocument.AGENT_TIME_INDEX));
+            // Partial, so samples stored without a key (older agents, history) do not collide on null
+            indexOps.createIndex(new Index()
+                    .on("idempotencyKey", Sort.Direction.ASC)
+                    .unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("idempotencyKey").exists(true)))
+                    .named(MetricReportDocument.IDEMPOTENCY_KEY_INDEX));
+
+            for (IndexInfo index : indexOps.getIndexInfo()) {
+                if (isLegacySingleFieldIndex(index)) {
+                    indexOps.dropIndex(index.getName());
+                    log.info("Dropped index {} on agent_reports, superseded by {}", index.getName(), MetricReportDocument.AGENT_TIME_INDEX);
+                }
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not prepare agent_reports indexes, history queries may scan: {}", ex.getMessage());
+        }
+
+        for (RollupResolution resolution : RollupResolution.values()) {
+            if (resolution.isRollup()) {
+                createRollupIndex(resolution);
+            }
+            applyRetention(resolution);
+        }
+    }
+
+    private void createRollupIndex(RollupResolution resolution) {
+        try {
+            mongoTemplate.indexOps(resolution.getCollection()).createIndex(new Index()
+                    .on("agentId", Sort.Direction.ASC)
+                    .on("bucketStart", Sort.Direction.ASC)
+                    .named(MetricRollupDocument.AGENT_BUCKET_INDEX));
+        } catch (DataAccessException ex) {
+            log.warn("Could not prepare {} indexes, series queries may scan: {}", resolution.getCollection(), ex.getMessage());
+        }
+    }
+
+    // The TTL monitor deletes expired documents in the background, so expiry never runs on a request thread.
+    private void applyRetention(RollupResolution tier) {
+        Duration retention = retentionPolicy.retentionFor(tier);
+        String name = tier.getTimeField() + TTL_INDEX_SUFFIX;
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(tier.getCollection());
+            Optional<IndexInfo> existing = indexOps.getIndexInfo().stream()
+                    .filter(index -> index.getName().equals(name))
+                    .findFirst();
+
+            if (retention.isZero()) {
+                if (existing.isPresent()) {
+                    indexOps.dropIndex(name);
+                    log.info("Dropped {} on {}, the tier is now kept forever", name, tier.getCollection());
+                }
+            } else if (existing.isEmpty()) {
+                indexOps.createIndex(new Index().on(tier.getTimeField(), Sort.Direction.ASC).expire(retention).named(name));
+                log.info("Created {} on {}, expiring after {}", name, tier.getCollection(), retention);
+            } else if (!existing.get().getExpireAfter().equals(Optional.of(retention))) {
+                // collMod changes the expiry in place; dropping and re-creating would rebuild the index
+                mongoTemplate.executeCommand(new Document("collMod", tier.getCollection())
+                        .append("index", new Document("name", name).append("expireAfterSeconds", retention.toSeconds())));
+                log.info("Changed {} on {} to expire after {}", name, tier.getCollection(), retention);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not apply retention to {}, documents are not expiring: {}", tier.getCollection(), ex.getMessage());
+        }
+    }
+
+    private boolean isLegacySingleFieldIndex(IndexInfo index) {
+        if (index.getIndexFields().size() != 1 || index.getExpireAfter().isPresent() || index.isUnique()) {
+            return false;
+        }
+        IndexField field = index.getIndexFields().get(0);
+        return LEGACY_SINGLE_FIELD_INDEXES.contains(field.getKey()) && !field.isHashed();
+    }
+}
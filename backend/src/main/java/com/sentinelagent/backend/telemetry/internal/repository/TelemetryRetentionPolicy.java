@@ -0,0 +1,30 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How long each storage tier keeps its documents. A zero retention keeps a tier forever.
+ */
+@Component
+public class TelemetryRetentionPolicy {
+
+    private final Map<RollupResolution, Duration> retention = new EnumMap<>(RollupResolution.class);
+
+    public TelemetryRetentionPolicy(@Value("${telemetry.retention.raw-days}") long rawDays,
+                                    @Value("${telemetry.retention.minute-rollup-weeks}") long minuteRollupWeeks,
+                                    @Value("${telemetry.retention.hour-rollup-days}") long hourRollupDays) {
+        retention.put(RollupResolution.RAW, Duration.ofDays(rawDays));
+        retention.put(RollupResolution.MINUTE, Duration.ofDays(minuteRollupWeeks * 7));
+        retention.put(RollupResolution.HOUR, Duration.ofDays(hourRollupDays));
+    }
+
+    public Duration retentionFor(RollupResolution tier) {
+        return retention.get(tier);
+    }
+}
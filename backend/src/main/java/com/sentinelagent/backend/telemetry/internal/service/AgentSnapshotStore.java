@@ -0,0 +1,196 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sentinelagent.backend.agent.api.AgentCommandGateway;
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Last known process and connection lists per agent, used to expand delta samples back into complete
+ * lists. A delta only applies on top of the exact sample it was computed against; when that sample is
+ * missing (restart, eviction, lost record) the agent is asked for a full snapshot.
+ *
+ * <p>Resolving a sample does not change the store: {@link #resolve} returns a {@link Resolution} and the
+ * snapshot only moves on when the caller {@link #commit commits} it once the sample is stored. A sample
+ * whose write fails therefore leaves its base in place and resolves again when it is retried or replayed.
+ * Stored snapshots are never modified, so they can be read outside the cache's locks.
+ */
+@Slf4j
+@Component
+public class AgentSnapshotStore {
+
+    private final Cache<String, Snapshot> snapshots;
+    private final Cache<String, Boolean> recentResyncRequests;
+    private final AgentCommandGateway commandGateway;
+
+    public AgentSnapshotStore(AgentCommandGateway commandGateway,
+                              @Value("${telemetry.snapshots.max-agents}") long maxAgents,
+                              @Value("${telemetry.snapshots.idle-expiry-minutes}") long idleExpiryMinutes,
+                              @Value("${telemetry.snapshots.resync-interval-seconds}") long resyncIntervalSeconds) {
+        this.commandGateway = commandGateway;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxAgents)
+                .expireAfterAccess(Duration.ofMinutes(idleExpiryMinutes))
+                .build();
+        this.recentResyncRequests = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(resyncIntervalSeconds))
+                .build();
+    }
+
+    public Resolution resolve(TelemetryData data) {
+        return resolve(data, null);
+    }
+
+    /**
+     * Brings {@code data} to complete lists: a full sample becomes the next snapshot, a delta is applied to
+     * a copy of the current one. When the delta cannot be expanded its lists are cleared so nothing partial
+     * is stored or analysed, and the resolution is not {@link Resolution#isComplete() complete}.
+     *
+     * @param pending resolutions of earlier samples in the same batch, keyed by agent and not committed
+     *                yet, so a delta can build on a sample stored alongside it; updated with this one
+     */
+    public Resolution resolve(TelemetryData data, Map<String, Resolution> pending) {
+        String agentId = data.getAgentId();
+        Resolution previous = pending != null ? pending.get(agentId) : null;
+        Snapshot base = previous != null ? previous.next : snapshots.getIfPresent(agentId);
+
+        Resolution resolution;
+        if (data.getBaseSequence() == null) {
+            resolution = new Resolution(agentId, base, data.getSequence() != null ? Snapshot.of(data) : null, false, true);
+        } else if (base != null && data.getSequence() != null && base.sequence == data.getBaseSequence()) {
+            Snapshot next = base.apply(data);
+            data.setProcesses(new ArrayList<>(next.processes.values()));
+            data.setNetworkConnections(new ArrayList<>(next.connections.values()));
+            resolution = new Resolution(agentId, base, next, true, true);
+        } else {
+            onUnresolvableDelta(data, base);
+            return new Resolution(agentId, base, null, true, false);
+        }
+        if (pending != null && resolution.next != null) {
+            pending.put(agentId, resolution);
+        }
+        return resolution;
+    }
+
+    /**
+     * Makes a stored sample's snapshot current. A delta only replaces the snapshot it was resolved against;
+     * a full sample replaces anything but a snapshot the agent sent later.
+     */
+    public void commit(Resolution resolution) {
+        if (resolution.next == null) {
+            return;
+        }
+        snapshots.asMap().compute(resolution.agentId,
+                (agentId, current) -> resolution.replaces(current) ? resolution.next : current);
+    }
+
+    private void onUnresolvableDelta(TelemetryData data, Snapshot current) {
+        data.setProcesses(null);
+        data.setNetworkConnections(null);
+
+        // A delta older than what we hold is a redelivery; the agent is fine and needs no resync
+        if (current != null && data.getSequence() != null && data.getSequence() <= current.sequence) {
+            return;
+        }
+        if (recentResyncRequests.asMap().putIfAbsent(data.getAgentId(), Boolean.TRUE) == null) {
+            log.debug("Delta from agent {} based on sequence {} does not match the stored snapshot", data.getAgentId(), data.getBaseSequence());
+            commandGateway.requestFullSnapshot(data.getAgentId());
+        }
+    }
+
+    /** Outcome of {@link #resolve}: whether the lists are complete, and the snapshot to commit once stored. */
+    public static final class Resolution {
+
+        private final String agentId;
+        private final Snapshot base;
+        private final Snapshot next;
+        private final boolean delta;
+        private final boolean complete;
+
+        private Resolution(String agentId, Snapshot base, Snapshot next, boolean delta, boolean complete) {
+            this.agentId = agentId;
+            this.base = base;
+            this.next = next;
+            this.delta = delta;
+            this.complete = complete;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        private boolean replaces(Snapshot current) {
+            if (delta) {
+                return current == base;
+            }
+            return current == null || current == base || !current.sentAfter(next);
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final long sequence;
+        private final Instant sentAt;
+        private final Map<Integer, TelemetryData.ProcessData> processes;
+        private final Map<ConnectionKey, TelemetryData.NetworkConnectionData> connections;
+
+        private Snapshot(long sequence, Instant sentAt,
+                         Map<Integer, TelemetryData.ProcessData> processes,
+                         Map<ConnectionKey, TelemetryData.NetworkConnectionData> connections) {
+            this.sequence = sequence;
+            this.sentAt = sentAt;
+            this.processes = processes;
+            this.connections = connections;
+        }
+
+        static Snapshot of(TelemetryData data) {
+            Snapshot snapshot = new Snapshot(data.getSequence(), data.getSentAt(), new LinkedHashMap<>(), new LinkedHashMap<>());
+            snapshot.putAll(data);
+            return snapshot;
+        }
+
+        Snapshot apply(TelemetryData delta) {
+            Snapshot next = new Snapshot(delta.getSequence(), delta.getSentAt(),
+                    new LinkedHashMap<>(processes), new LinkedHashMap<>(connections));
+            if (delta.getRemovedProcessPids() != null) {
+                delta.getRemovedProcessPids().forEach(next.processes::remove);
+            }
+            if (delta.getRemovedConnections() != null) {
+                delta.getRemovedConnections().forEach(connection -> next.connections.remove(ConnectionKey.of(connection)));
+            }
+            next.putAll(delta);
+            return next;
+        }
+
+        boolean sentAfter(Snapshot other) {
+            return sentAt != null && other.sentAt != null && sentAt.isAfter(other.sentAt);
+        }
+
+        // Only called while the snapshot is being built, before anyone else can see it
+        private void putAll(TelemetryData data) {
+            if (data.getProcesses() != null) {
+                data.getProcesses().forEach(process -> processes.put(process.getPid(), process));
+            }
+            if (data.getNetworkConnections() != null) {
+                data.getNetworkConnections().forEach(connection -> connections.put(ConnectionKey.of(connection), connection));
+            }
+        }
+    }
+
+    private record ConnectionKey(int pid, String localAddress, int localPort, String remoteAddress, int remotePort) {
+
+        static ConnectionKey of(TelemetryData.NetworkConnectionData connection) {
+            return new ConnectionKey(connection.getPid(), connection.getLocalAddress(), connection.getLocalPort(),
+                    connection.getRemoteAddress(), connection.getRemotePort());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.FleetTopResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongSupplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Fleet-wide rankings per metric, kept current by ingest. Each metric is a skip list ordered by value, so a
+ * new sample moves its agent in O(log n) and a top-N read walks only N entries. Agents that stop reporting
+ * drop out after the idle time. Only agents ingested by this instance are ranked.
+ */
+@Component
+public class FleetLeaderboard {
+
+    public enum Metric {
+        CPU(TelemetryResponse::cpuUsage),
+        RAM(TelemetryResponse::ramUsedPercent),
+        DISK(TelemetryResponse::diskUsedPercent),
+        UPLOAD(TelemetryResponse::bytesSentSec),
+        DOWNLOAD(TelemetryResponse::bytesRecvSec);
+
+        private final ToDoubleFunction<TelemetryResponse> extractor;
+
+        Metric(ToDoubleFunction<TelemetryResponse> extractor) {
+            this.extractor = extractor;
+        }
+
+        public static Optional<Metric> fromName(String name) {
+            try {
+                return Optional.of(valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException ex) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private static final Comparator<Ranking> HIGHEST_FIRST = Comparator
+            .comparingDouble(Ranking::value).reversed()
+            .thenComparing(Ranking::agentId);
+
+    private final Map<Metric, NavigableSet<Ranking>> rankings = new EnumMap<>(Metric.class);
+    private final Map<String, AgentState> agents = new ConcurrentHashMap<>();
+    private final long idleMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public FleetLeaderboard(@Value("${telemetry.leaderboard.idle-seconds}") long idleSeconds) {
+        this(idleSeconds, System::currentTimeMillis);
+    }
+
+    FleetLeaderboard(long idleSeconds, LongSupplier clock) {
+        this.idleMillis = idleSeconds * 1000;
+        this.clock = clock;
+        for (Metric metric : Metric.values()) {
+            rankings.put(metric, new ConcurrentSkipListSet<>(HIGHEST_FIRST));
+        }
+    }
+
+    public void update(TelemetryResponse report) {
+        if (report.agentId() == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        // compute() serialises updates per agent, so its old rankings are removed exactly once
+        agents.compute(report.agentId(), (agentId, previous) -> {
+            if (previous != null && report.receivedAt() != null && previous.receivedAt() != null
+                    && report.receivedAt().isBefore(previous.receivedAt())) {
+                return previous.seenAt(now);
+            }
+            AgentState next = AgentState.of(report, now);
+            for (Metric metric : Metric.values()) {
+                NavigableSet<Ranking> ranking = rankings.get(metric);
+                if (previous != null) {
+                    ranking.remove(previous.rankings().get(metric));
+                }
+                ranking.add(next.rankings().get(metric));
+            }
+            return next;
+        });
+    }
+
+    public FleetTopResponse top(Metric metric, int limit) {
+        long activeSince = clock.getAsLong() - idleMillis;
+        List<FleetTopResponse.Entry> entries = new ArrayList<>(limit);
+        for (Ranking ranking : rankings.get(metric)) {
+            if (entries.size() == limit) {
+                break;
+            }
+            AgentState state = agents.get(ranking.agentId());
+            if (state != null && state.lastSeen() >= activeSince) {
+                entries.add(new FleetTopResponse.Entry(ranking.agentId(), state.hostname(), ranking.value(), state.receivedAt()));
+            }
+        }
+        return new FleetTopResponse(metric.name(), entries);
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.leaderboard.sweep-interval-ms}")
+    public void evictIdle() {
+        long activeSince = clock.getAsLong() - idleMillis;
+        for (String agentId : agents.keySet()) {
+            agents.computeIfPresent(agentId, (id, state) -> {
+                if (state.lastSeen() >= activeSince) {
+                    return state;
+                }
+                for (Metric metric : Metric.values()) {
+                    rankings.get(metric).remove(state.rankings().get(metric));
+                }
+                return null;
+            });
+        }
+    }
+
+    int trackedAgents() {
+        return agents.size();
+    }
+
+    private record Ranking(double value, String agentId) {
+    }
+
+    private record AgentState(String hostname, LocalDateTime receivedAt, long lastSeen, Map<Metric, Ranking> rankings) {
+
+        static AgentState of(TelemetryResponse report, long now) {
+            Map<Metric, Ranking> rankings = new EnumMap<>(Metric.class);
+            for (Metric metric : Metric.values()) {
+                rankings.put(metric, new Ranking(metric.extractor.applyAsDouble(report), report.agentId()));
+            }
+            return new AgentState(report.hostname(), report.receivedAt(), now, rankings);
+        }
+
+        AgentState seenAt(long now) {
+            return new AgentState(hostname, receivedAt, now, rankings);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Newest stored report per agent, filled by ingest so the latest-report reads usually skip the database.
+ * Entries expire shortly after their last write: an agent keeps its entry while it reports, and another
+ * instance's ingest (or a stopped agent) only leaves a stale entry for one TTL.
+ */
+@Component
+public class LatestTelemetryCache {
+
+    private final Cache<String, TelemetryResponse> latest;
+
+    public LatestTelemetryCache(@Value("${telemetry.latest-cache.max-agents}") long maxAgents,
+                                @Value("${telemetry.latest-cache.ttl-seconds}") long ttlSeconds) {
+        this.latest = Caffeine.newBuilder()
+                .maximumSize(maxAgents)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public Optional<TelemetryResponse> get(String agentId) {
+        return Optional.ofNullable(latest.getIfPresent(agentId));
+    }
+
+    /** Keeps {@code report} unless a newer one is already cached; retried records can arrive late. */
+    public void offer(TelemetryResponse report) {
+        if (report.agentId() == null || report.receivedAt() == null) {
+            return;
+        }
+        latest.asMap().merge(report.agentId(), report,
+                (current, incoming) -> incoming.receivedAt().isBefore(current.receivedAt()) ? current : incoming);
+    }
+}
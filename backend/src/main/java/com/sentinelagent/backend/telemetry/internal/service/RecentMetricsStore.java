@@ -0,0 +1,334 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryWindowStats;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricWindowSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Each agent's most recent samples in primitive ring buffers, so that questions about the last few minutes
+ * (AI summaries, the trend lines of the analysis prompt) are answered without a Mongo round trip. Every agent
+ * gets samples-per-agent slots and the number of agents is capped so the store never exceeds
+ * {@code telemetry.recent.max-bytes}; past that, the agent that reported least recently gives up its slots.
+ * Window statistics walk the arrays in place and allocate nothing but their result.
+ */
+@Component
+public class RecentMetricsStore {
+
+    // Time, five metrics and the percentile scratch array, eight bytes each per slot
+    static final int BYTES_PER_SLOT = 7 * Long.BYTES;
+
+    private static final int CPU = 0;
+    private static final int RAM = 1;
+    private static final int DISK = 2;
+    private static final int SENT = 3;
+    private static final int RECV = 4;
+
+    private final int samplesPerAgent;
+    private final int maxAgents;
+    private final Map<String, Series> agents = new ConcurrentHashMap<>();
+    private final Counter evictions;
+
+    public RecentMetricsStore(@Value("${telemetry.recent.samples-per-agent}") int samplesPerAgent,
+                              @Value("${telemetry.recent.max-bytes}") long maxBytes,
+                              MeterRegistry meterRegistry) {
+        this.samplesPerAgent = samplesPerAgent;
+        this.maxAgents = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / ((long) samplesPerAgent * BYTES_PER_SLOT)));
+        this.evictions = Counter.builder("telemetry.recent.evictions").register(meterRegistry);
+        Gauge.builder("telemetry.recent.agents", agents, Map::size).register(meterRegistry);
+    }
+
+    public void record(TelemetryResponse sample) {
+        long time = toMillis(sample.receivedAt());
+        for (;;) {
+            Series series = agents.get(sample.agentId());
+            if (series == null) {
+                series = admit(sample.agentId());
+            }
+            synchronized (series) {
+                // Another agent's admission may have evicted this series since it was looked up; a sample
+                // appended to it would be lost, so look again and admit a fresh one
+                if (agents.get(sample.agentId()) != series) {
+                    continue;
+                }
+                series.append(time, sample.cpuUsage(), sample.ramUsedPercent(),
+                        sample.diskUsedPercent(), sample.bytesSentSec(), sample.bytesRecvSec());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Summary of the agent's samples received between {@code from} and {@code to}, or empty when the store
+     * does not hold the whole window: the agent is unknown here, or older samples have been overwritten or
+     * were stored before this instance started.
+     */
+    public Optional<MetricWindowSummary> summarize(String agentId, LocalDateTime from, LocalDateTime to) {
+        Series series = agents.get(agentId);
+        if (series == null) {
+            return Optional.empty();
+        }
+        synchronized (series) {
+            long fromMillis = toMillis(from);
+            return fromMillis >= series.coveredSince
+                    ? Optional.of(series.summarize(fromMillis, toMillis(to)))
+                    : Optional.empty();
+        }
+    }
+
+    /** Statistics over whatever samples of the window the store holds; empty when it holds none. */
+    public Optional<TelemetryWindowStats> windowStats(String agentId, LocalDateTime from, LocalDateTime to) {
+        Series series = agents.get(agentId);
+        if (series == null) {
+            return Optional.empty();
+        }
+        synchronized (series) {
+            long fromMillis = toMillis(from);
+            long toMillis = toMillis(to);
+            int count = series.collect(CPU, fromMillis, toMillis);
+            if (count == 0) {
+                return Optional.empty();
+            }
+            LocalDateTime firstSampleAt = toLocal(series.firstTime);
+            LocalDateTime lastSampleAt = toLocal(series.lastTime);
+            TelemetryWindowStats.Stats cpu = series.stats(count);
+            TelemetryWindowStats.Stats ram = series.stats(series.collect(RAM, fromMillis, toMillis));
+            TelemetryWindowStats.Stats disk = series.stats(series.collect(DISK, fromMillis, toMillis));
+            TelemetryWindowStats.Stats sent = series.stats(series.collect(SENT, fromMillis, toMillis));
+            TelemetryWindowStats.Stats recv = series.stats(series.collect(RECV, fromMillis, toMillis));
+            return Optional.of(new TelemetryWindowStats(agentId, count, firstSampleAt, lastSampleAt, cpu, ram, disk, sent, recv));
+        }
+    }
+
+    int maxAgents() {
+        return maxAgents;
+    }
+
+    int trackedAgents() {
+        return agents.size();
+    }
+
+    private synchronized Series admit(String agentId) {
+        Series series = agents.get(agentId);
+        if (series != null) {
+            return series;
+        }
+        if (agents.size() >= maxAgents) {
+            evictLeastRecent();
+        }
+        series = new Series(samplesPerAgent);
+        agents.put(agentId, series);
+        return series;
+    }
+
+    private void evictLeastRecent() {
+        String oldest = null;
+        long oldestWrite = Long.MAX_VALUE;
+        for (Map.Entry<String, Series> entry : agents.entrySet()) {
+            long lastWrite = entry.getValue().lastWrite;
+            if (lastWrite < oldestWrite) {
+                oldestWrite = lastWrite;
+                oldest = entry.getKey();
+            }
+        }
+        if (oldest != null) {
+            agents.remove(oldest);
+            evictions.increment();
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /** One agent's ring. Callers hold its monitor. */
+    private static final class Series {
+
+        private final long[] times;
+        private final double[] cpu;
+        private final double[] ram;
+        private final double[] disk;
+        private final long[] sent;
+        private final long[] recv;
+        // Values of the window being evaluated, reordered in place by the percentile selection
+        private final double[] scratch;
+        private int head;
+        private int size;
+        // Windows starting at or after this are complete; older samples were overwritten or never seen
+        private long coveredSince = Long.MAX_VALUE;
+        private volatile long lastWrite;
+        // Left by the last collect: receive times of its oldest and newest sample, and its least-squares sums
+        private long firstTime;
+        private long lastTime;
+        private double sumX;
+        private double sumXX;
+        private double sumXY;
+
+        Series(int capacity) {
+            times = new long[capacity];
+            cpu = new double[capacity];
+            ram = new double[capacity];
+            disk = new double[capacity];
+            sent = new long[capacity];
+            recv = new long[capacity];
+            scratch = new double[capacity];
+            lastWrite = System.nanoTime();
+        }
+
+        void append(long time, double cpuUsage, double ramUsedPercent, double diskUsedPercent, long bytesSent, long bytesRecv) {
+            if (size == times.length) {
+                coveredSince = Math.max(coveredSince, times[head] + 1);
+            } else {
+                size++;
+                coveredSince = Math.min(coveredSince, time);
+            }
+            times[head] = time;
+            cpu[head] = cpuUsage;
+            ram[head] = ramUsedPercent;
+            disk[head] = diskUsedPercent;
+            sent[head] = bytesSent;
+            recv[head] = bytesRecv;
+            head = (head + 1) % times.length;
+            lastWrite = System.nanoTime();
+        }
+
+        MetricWindowSummary summarize(long from, long to) {
+            long count = 0;
+            double cpuSum = 0;
+            double ramSum = 0;
+            double sentSum = 0;
+            double recvSum = 0;
+            int first = -1;
+            int last = -1;
+            for (int i = 0; i < size; i++) {
+                long time = times[i];
+                if (time < from || time > to) {
+                    continue;
+                }
+                count++;
+                cpuSum += cpu[i];
+                ramSum += ram[i];
+                sentSum += sent[i];
+                recvSum += recv[i];
+                if (first < 0 || time < times[first]) {
+                    first = i;
+                }
+                if (last < 0 || time >= times[last]) {
+                    last = i;
+                }
+            }
+            if (count == 0) {
+                return new MetricWindowSummary(0, 0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            return new MetricWindowSummary(count, cpuSum / count, ramSum / count, sentSum / count, recvSum / count,
+                    cpu[first], ram[first], cpu[last], ram[last]);
+        }
+
+        /**
+         * Copies the metric's values within the window to {@code scratch} in slot order and returns how many
+         * there were. Their fit against time is accumulated at the same time, for {@link #stats(int)}.
+         */
+        int collect(int metric, long from, long to) {
+            int count = 0;
+            sumX = 0;
+            sumXX = 0;
+            sumXY = 0;
+            firstTime = Long.MAX_VALUE;
+            lastTime = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                long time = times[i];
+                if (time < from || time > to) {
+                    continue;
+                }
+                double value = value(metric, i);
+                // Minutes relative to the window start keep the sums well conditioned
+                double x = (time - from) / 60_000.0;
+                sumX += x;
+                sumXX += x * x;
+                sumXY += x * value;
+                scratch[count++] = value;
+                firstTime = Math.min(firstTime, time);
+                lastTime = Math.max(lastTime, time);
+            }
+            return count;
+        }
+
+        /** Statistics of the {@code count} values left in {@code scratch} by {@link #collect}. */
+        TelemetryWindowStats.Stats stats(int count) {
+            if (count == 0) {
+                return new TelemetryWindowStats.Stats(0, 0, 0, 0, 0);
+            }
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                double value = scratch[i];
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            double denominator = count * sumXX - sumX * sumX;
+            double slope = denominator > 0 ? (count * sumXY - sumX * sum) / denominator : 0;
+            double p95 = select(scratch, count, (int) Math.ceil(0.95 * count) - 1);
+            return new TelemetryWindowStats.Stats(sum / count, min, max, p95, slope);
+        }
+
+        private double value(int metric, int slot) {
+            return switch (metric) {
+                case CPU -> cpu[slot];
+                case RAM -> ram[slot];
+                case DISK -> disk[slot];
+                case SENT -> sent[slot];
+                case RECV -> recv[slot];
+                default -> throw new IllegalArgumentException("metric " + metric);
+            };
+        }
+    }
+
+    /** The k-th smallest of {@code values[0..count)}, found in place by quickselect. */
+    static double select(double[] values, int count, int k) {
+        int left = 0;
+        int right = count - 1;
+        while (left < right) {
+            double pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double swap = values[i];
+                    values[i++] = values[j];
+                    values[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+}
@@ -0,0 +1,93 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the keys of the current and the previous window, so a key is remembered for one to two
+ * windows and memory stays at two fixed bit sets. Lock-free; a concurrent {@link #rotate()} can at worst
+ * forget a key early, which only costs the caller's fallback check.
+ */
+final class RotatingBloomFilter {
+
+    private final int words;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+
+    RotatingBloomFilter(long expectedKeysPerWindow, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedKeysPerWindow * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = (int) Math.min(Math.max((optimalBits + 63) / 64, 1), Integer.MAX_VALUE - 8);
+        this.bitCount = (long) words * 64;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedKeysPerWindow * ln2));
+        this.current = new AtomicLongArray(words);
+        this.previous = new AtomicLongArray(words);
+    }
+
+    /** Records {@code key} and returns whether it may have been recorded before; false is always exact. */
+    boolean put(String key) {
+        return probe(key, true);
+    }
+
+    /** Whether {@code key} may have been recorded, without recording it; false is always exact. */
+    boolean mightContain(String key) {
+        return probe(key, false);
+    }
+
+    private boolean probe(String key, boolean record) {
+        AtomicLongArray cur = current;
+        AtomicLongArray prev = previous;
+        long hash = hash(key);
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+
+        boolean inCurrent = true;
+        boolean inPrevious = true;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((cur.get(word) & mask) == 0) {
+                inCurrent = false;
+                if (record) {
+                    cur.getAndAccumulate(word, mask, (value, m) -> value | m);
+                }
+            }
+            if (inPrevious && (prev.get(word) & mask) == 0) {
+                inPrevious = false;
+            }
+        }
+        return inCurrent || inPrevious;
+    }
+
+    /** Starts a new window; keys recorded before the previous one are forgotten. */
+    void rotate() {
+        previous = current;
+        current = new AtomicLongArray(words);
+    }
+
+    long sizeInBytes() {
+        return 2L * words * Long.BYTES;
+    }
+
+    private static long hash(String key) {
+        // FNV-1a over the UTF-8 bytes, finalised with the MurmurHash3 mixer
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
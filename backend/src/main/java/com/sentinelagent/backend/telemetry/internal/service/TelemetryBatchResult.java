@@ -0,0 +1,14 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+
+import java.util.List;
+
+public record TelemetryBatchResult(List<TelemetryResponse> saved, List<Failure> failures) {
+
+    /**
+     * A record of the batch that was not stored; {@code index} is its position in the submitted batch.
+     */
+    public record Failure(int index, Exception cause) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.internal.repository.SpringDataMetricReportRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recognises samples that were already stored: Kafka redelivers a poll after a rebalance, and agents resend
+ * a report whose acknowledgement they missed. Keys from the last one or two windows sit in a
+ * {@link RotatingBloomFilter}, so a new sample (the common case) costs one hash and only a filter hit, which
+ * may be false, is confirmed against the unique idempotency index. That index rejects anything the filter
+ * no longer remembers or another instance stored.
+ *
+ * <p>A key only enters the filter once its sample is stored ({@link #recordStored}), so a sample retried
+ * after a failed write, or replayed from the spool, is not mistaken for a duplicate and does not show up as
+ * a false positive.
+ */
+@Slf4j
+@Component
+public class TelemetryDeduplicator {
+
+    private final SpringDataMetricReportRepository metricReportRepository;
+    private final RotatingBloomFilter recentKeys;
+    private final Counter filterDuplicates;
+    private final Counter indexDuplicates;
+    private final Counter falsePositives;
+
+    public TelemetryDeduplicator(SpringDataMetricReportRepository metricReportRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${telemetry.dedup.expected-keys-per-window}") long expectedKeysPerWindow,
+                                 @Value("${telemetry.dedup.false-positive-rate}") double falsePositiveRate) {
+        this.metricReportRepository = metricReportRepository;
+        this.recentKeys = new RotatingBloomFilter(expectedKeysPerWindow, falsePositiveRate);
+        this.filterDuplicates = duplicateCounter(meterRegistry, "filter");
+        this.indexDuplicates = duplicateCounter(meterRegistry, "index");
+        this.falsePositives = Counter.builder("telemetry.ingest.dedup.false-positives")
+                .description("Filter hits that turned out to be new samples")
+                .register(meterRegistry);
+        log.info("Telemetry duplicate filter uses {} KiB", recentKeys.sizeInBytes() / 1024);
+    }
+
+    /**
+     * Idempotency key of a sample: the agent, its send time and, when present, its sequence number. Samples
+     * without an agent timestamp have none and are never treated as duplicates; the sequence alone restarts
+     * with the agent process.
+     */
+    public static String keyOf(TelemetryData data) {
+        if (data.getAgentId() == null || (data.getSentAt() == null && data.getTimestamp() == null)) {
+            return null;
+        }
+        String sentAt = data.getSentAt() != null ? data.getSentAt().toString() : data.getTimestamp().toString();
+        return data.getSequence() != null
+                ? data.getAgentId() + '|' + sentAt + '|' + data.getSequence()
+                : data.getAgentId() + '|' + sentAt;
+    }
+
+    /** Whether the sample with {@code key} is already stored. */
+    public boolean isDuplicate(String key) {
+        if (key == null || !recentKeys.mightContain(key)) {
+            return false;
+        }
+        if (metricReportRepository.existsByIdempotencyKey(key)) {
+            filterDuplicates.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /** Remembers the key of a sample that is now stored, or that the unique index reported as stored. */
+    public void recordStored(String key) {
+        if (key != null) {
+            recentKeys.put(key);
+        }
+    }
+
+    /** Counts a duplicate that was only caught by the unique index on insert. */
+    public void recordIndexDuplicate() {
+        indexDuplicates.increment();
+    }
+
+    @Scheduled(fixedRateString = "${telemetry.dedup.window-minutes}", initialDelayString = "${telemetry.dedup.window-minutes}",
+            timeUnit = TimeUnit.MINUTES)
+    public void rotate() {
+        recentKeys.rotate();
+    }
+
+    private static Counter duplicateCounter(MeterRegistry meterRegistry, String caughtBy) {
+        return Counter.builder("telemetry.ingest.duplicates")
+                .description("Redelivered telemetry samples that were not stored again")
+                .tag("caught-by", caughtBy)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Time spent in each step of storing a sample, as {@code telemetry.ingest.stage} tagged by stage, and the
+ * samples that came out stored or as duplicates. The stages split ingest latency between the credential
+ * check, the duplicate filter, string interning, delta expansion, mapping, the database and the in-memory
+ * views.
+ */
+@Component
+public class TelemetryIngestMetrics {
+
+    public enum Stage {
+        VALIDATE,
+        DEDUPLICATE,
+        INTERN,
+        RESOLVE,
+        MAP,
+        STORE,
+        STORE_BATCH,
+        VIEWS,
+        PUBLISH;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Counter stored;
+    private final Counter duplicates;
+
+    public TelemetryIngestMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("telemetry.ingest.stage")
+                    .description("Time spent in one step of storing telemetry")
+                    .tag("stage", stage.tag())
+                    .register(meterRegistry));
+        }
+        this.stored = messageCounter(meterRegistry, "stored");
+        this.duplicates = messageCounter(meterRegistry, "duplicate");
+    }
+
+    public <T> T time(Stage stage, Supplier<T> step) {
+        return stages.get(stage).record(step);
+    }
+
+    public void time(Stage stage, Runnable step) {
+        stages.get(stage).record(step);
+    }
+
+    public void stored(int count) {
+        stored.increment(count);
+    }
+
+    public void duplicate() {
+        duplicates.increment();
+    }
+
+    private static Counter messageCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("telemetry.ingest.messages")
+                .description("Telemetry samples handled by ingest")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,273 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes stored reports to dashboards over server-sent events, per agent or fleet-wide. Ingest only
+ * enqueues: every subscriber has a bounded queue that drops its oldest events when the client falls
+ * behind, and a small pool of drain threads does the writing. Each event is serialized at most once
+ * per shape, however many subscribers receive it.
+ */
+@Slf4j
+@Component
+public class TelemetryLiveBroadcaster {
+
+    private static final String FLEET = "";
+    private static final int DRAIN_BATCH = 64;
+
+    private final ObjectMapper objectMapper;
+    private final TelemetryMapper telemetryMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final ExecutorService drainExecutor;
+    private final Map<String, Set<Subscriber>> subscribersByAgent = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter droppedEvents;
+
+    @Autowired
+    public TelemetryLiveBroadcaster(ObjectMapper objectMapper,
+                                    TelemetryMapper telemetryMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${telemetry.live.buffer-size}") int bufferSize,
+                                    @Value("${telemetry.live.max-subscribers}") int maxSubscribers,
+                                    @Value("${telemetry.live.emitter-timeout-minutes}") long emitterTimeoutMinutes,
+                                    @Value("${telemetry.live.drain-threads}") int drainThreads) {
+        this(objectMapper, telemetryMapper, meterRegistry, bufferSize, maxSubscribers, emitterTimeoutMinutes,
+                newDrainExecutor(drainThreads));
+    }
+
+    TelemetryLiveBroadcaster(ObjectMapper objectMapper, TelemetryMapper telemetryMapper, MeterRegistry meterRegistry,
+                             int bufferSize, int maxSubscribers, long emitterTimeoutMinutes, ExecutorService drainExecutor) {
+        this.objectMapper = objectMapper;
+        this.telemetryMapper = telemetryMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMinutes * 60_000;
+        this.drainExecutor = drainExecutor;
+        Gauge.builder("telemetry.live.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Connected live telemetry subscribers")
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder("telemetry.live.dropped")
+                .description("Live telemetry events dropped because a subscriber fell behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for one agent, or the whole fleet when {@code agentId} is null. Empty when the
+     * subscriber limit is reached.
+     */
+    public Optional<SseEmitter> subscribe(String agentId, boolean metricsOnly) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(agentId != null ? agentId : FLEET, metricsOnly, emitter);
+        subscribersByAgent.compute(subscriber.key, (key, current) -> {
+            Set<Subscriber> subscribers = current != null ? current : ConcurrentHashMap.newKeySet();
+            subscribers.add(subscriber);
+            return subscribers;
+        });
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return Optional.of(emitter);
+    }
+
+    public void publish(TelemetryResponse report) {
+        if (subscriberCount.get() == 0 || report.agentId() == null) {
+            return;
+        }
+        LiveEvent event = new LiveEvent(report);
+        offerAll(subscribersByAgent.get(report.agentId()), event);
+        offerAll(subscribersByAgent.get(FLEET), event);
+    }
+
+    /** Keeps idle streams alive through proxies and detects clients that went away without closing. */
+    @Scheduled(fixedDelayString = "${telemetry.live.keepalive-ms}")
+    public void sendKeepalive() {
+        subscribersByAgent.values().forEach(subscribers -> offerAll(subscribers, LiveEvent.KEEPALIVE));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribersByAgent.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        drainExecutor.shutdownNow();
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private static ExecutorService newDrainExecutor(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-live-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Computed on first use by whichever drain thread gets there; a rare duplicate computation is harmless
+    private String toJson(LiveEvent event, boolean metricsOnly) throws IOException {
+        if (metricsOnly) {
+            String json = event.metricsJson;
+            if (json == null) {
+                json = objectMapper.writeValueAsString(telemetryMapper.toMetricsResponse(event.report));
+                event.metricsJson = json;
+            }
+            return json;
+        }
+        String json = event.fullJson;
+        if (json == null) {
+            json = objectMapper.writeValueAsString(event.report);
+            event.fullJson = json;
+        }
+        return json;
+    }
+
+    private void offerAll(Set<Subscriber> subscribers, LiveEvent event) {
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    private final class Subscriber {
+        private final String key;
+        private final boolean metricsOnly;
+        private final SseEmitter emitter;
+        private final Deque<LiveEvent> queue = new ArrayDeque<>();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(String key, boolean metricsOnly, SseEmitter emitter) {
+            this.key = key;
+            this.metricsOnly = metricsOnly;
+            this.emitter = emitter;
+        }
+
+        void offer(LiveEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            synchronized (queue) {
+                if (queue.size() >= bufferSize) {
+                    queue.pollFirst();
+                    droppedEvents.increment();
+                }
+                queue.addLast(event);
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!closed.get() && drainScheduled.compareAndSet(false, true)) {
+                try {
+                    drainExecutor.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    // Shutting down; the stream is completed in shutdown()
+                    drainScheduled.set(false);
+                }
+            }
+        }
+
+        // At most one drain per subscriber runs at a time; a batch limit keeps one busy client from
+        // monopolising a drain thread while others wait.
+        private void drain() {
+            try {
+                for (int sent = 0; sent < DRAIN_BATCH && !closed.get(); sent++) {
+                    LiveEvent event = poll();
+                    if (event == null) {
+                        break;
+                    }
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Live telemetry subscriber went away: {}", ex.getMessage());
+                emitter.completeWithError(ex);
+                close();
+            } finally {
+                drainScheduled.set(false);
+            }
+            if (hasPending()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(LiveEvent event) throws IOException {
+            if (event == LiveEvent.KEEPALIVE) {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .name("telemetry")
+                        .data(toJson(event, metricsOnly), MediaType.APPLICATION_JSON));
+            }
+        }
+
+        private LiveEvent poll() {
+            synchronized (queue) {
+                return queue.pollFirst();
+            }
+        }
+
+        private boolean hasPending() {
+            synchronized (queue) {
+                return !queue.isEmpty();
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                // Under the map's key lock, so a concurrent subscribe cannot add to a set that is being dropped
+                subscribersByAgent.computeIfPresent(key, (k, current) -> {
+                    current.remove(this);
+                    return current.isEmpty() ? null : current;
+                });
+                subscriberCount.decrementAndGet();
+                synchronized (queue) {
+                    queue.clear();
+                }
+            }
+        }
+    }
+
+    private static final class LiveEvent {
+        static final LiveEvent KEEPALIVE = new LiveEvent(null);
+
+        private final TelemetryResponse report;
+        private volatile String fullJson;
+        private volatile String metricsJson;
+
+        private LiveEvent(TelemetryResponse report) {
+            this.report = report;
+        }
+    }
+}
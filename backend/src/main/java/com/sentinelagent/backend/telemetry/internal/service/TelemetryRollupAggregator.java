@@ -0,0 +1,197 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument.MetricStats;
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
+import com.sentinelagent.backend.telemetry.internal.repository.MetricRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the minute and hour rollups incrementally. Stored reports are folded into in-memory buckets
+ * and each flush upserts what accumulated since the previous one, so the rollup collections see one
+ * write per agent and bucket per interval instead of one per sample.
+ *
+ * <p>Buckets of a failed flush are kept for the next one, up to {@code telemetry.rollups.max-pending-buckets};
+ * past that they are dropped and counted in {@code telemetry.rollups.dropped}, so a long database outage
+ * costs rollup precision rather than heap.
+ */
+@Slf4j
+@Component
+public class TelemetryRollupAggregator {
+
+    private final MetricRollupRepository rollupRepository;
+    private final Map<BucketKey, Bucket> pending = new ConcurrentHashMap<>();
+    private final int maxPendingBuckets;
+    private final Counter droppedBuckets;
+
+    public TelemetryRollupAggregator(MetricRollupRepository rollupRepository, MeterRegistry meterRegistry,
+                                     @Value("${telemetry.rollups.max-pending-buckets}") int maxPendingBuckets) {
+        this.rollupRepository = rollupRepository;
+        this.maxPendingBuckets = maxPendingBuckets;
+        this.droppedBuckets = Counter.builder("telemetry.rollups.dropped")
+                .description("Rollup buckets discarded after a failed flush because too many were already pending")
+                .register(meterRegistry);
+        Gauge.builder("telemetry.rollups.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public void record(TelemetryResponse report) {
+        if (report.agentId() == null || report.receivedAt() == null) {
+            return;
+        }
+        for (RollupResolution resolution : RollupResolution.values()) {
+            if (resolution.isRollup()) {
+                BucketKey key = new BucketKey(resolution, report.agentId(), resolution.bucketStart(report.receivedAt()));
+                pending.compute(key, (k, bucket) -> (bucket == null ? new Bucket() : bucket).add(report));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.rollups.flush-interval-ms}")
+    public void flush() {
+        Map<RollupResolution, Map<BucketKey, Bucket>> batches = new EnumMap<>(RollupResolution.class);
+        for (BucketKey key : pending.keySet()) {
+            // Removed buckets are no longer reachable from record(); a sample arriving now starts a new one
+            Bucket bucket = pending.remove(key);
+            if (bucket != null) {
+                batches.computeIfAbsent(key.resolution(), r -> new HashMap<>()).put(key, bucket);
+            }
+        }
+
+        batches.forEach((resolution, batch) -> {
+            List<MetricRollupDocument> increments = new ArrayList<>(batch.size());
+            batch.forEach((key, bucket) -> increments.add(bucket.toIncrement(key)));
+            try {
+                rollupRepository.upsertAll(resolution, increments);
+                log.debug("Flushed {} {} rollup buckets", increments.size(), resolution);
+            } catch (Exception ex) {
+                int dropped = retain(batch);
+                log.warn("Rollup flush failed, keeping {} {} buckets for the next attempt and dropping {}: {}",
+                        increments.size() - dropped, resolution, dropped, ex.getMessage());
+            }
+        });
+    }
+
+    // Merging into a bucket that is already pending costs nothing; a new one is only kept while there is room
+    private int retain(Map<BucketKey, Bucket> batch) {
+        int dropped = 0;
+        for (Map.Entry<BucketKey, Bucket> entry : batch.entrySet()) {
+            if (pending.size() >= maxPendingBuckets && !pending.containsKey(entry.getKey())) {
+                dropped++;
+                continue;
+            }
+            pending.merge(entry.getKey(), entry.getValue(), Bucket::merge);
+        }
+        droppedBuckets.increment(dropped);
+        return dropped;
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush();
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    record BucketKey(RollupResolution resolution, String agentId, LocalDateTime bucketStart) {
+    }
+
+    /** Only mutated under the map's per-key lock (compute/merge), or after it has been removed from the map. */
+    private static final class Bucket {
+        private long count;
+        private LocalDateTime lastSampleAt;
+        private final Stats cpu = new Stats();
+        private final Stats ram = new Stats();
+        private final Stats disk = new Stats();
+        private final Stats sent = new Stats();
+        private final Stats recv = new Stats();
+
+        Bucket add(TelemetryResponse report) {
+            boolean newest = lastSampleAt == null || !report.receivedAt().isBefore(lastSampleAt);
+            if (newest) {
+                lastSampleAt = report.receivedAt();
+            }
+            count++;
+            cpu.add(report.cpuUsage(), newest);
+            ram.add(report.ramUsedPercent(), newest);
+            disk.add(report.diskUsedPercent(), newest);
+            sent.add(report.bytesSentSec(), newest);
+            recv.add(report.bytesRecvSec(), newest);
+            return this;
+        }
+
+        Bucket merge(Bucket other) {
+            boolean newest = lastSampleAt == null || !other.lastSampleAt.isBefore(lastSampleAt);
+            if (newest) {
+                lastSampleAt = other.lastSampleAt;
+            }
+            count += other.count;
+            cpu.merge(other.cpu, newest);
+            ram.merge(other.ram, newest);
+            disk.merge(other.disk, newest);
+            sent.merge(other.sent, newest);
+            recv.merge(other.recv, newest);
+            return this;
+        }
+
+        MetricRollupDocument toIncrement(BucketKey key) {
+            return MetricRollupDocument.builder()
+                    .agentId(key.agentId())
+                    .bucketStart(key.bucketStart())
+                    .sampleCount(count)
+                    .lastSampleAt(lastSampleAt)
+                    .cpuUsage(cpu.toStats())
+                    .ramUsedPercent(ram.toStats())
+                    .diskUsedPercent(disk.toStats())
+                    .bytesSentSec(sent.toStats())
+                    .bytesRecvSec(recv.toStats())
+                    .build();
+        }
+    }
+
+    private static final class Stats {
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private double last;
+
+        void add(double value, boolean newest) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            if (newest) {
+                last = value;
+            }
+        }
+
+        void merge(Stats other, boolean newest) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum += other.sum;
+            if (newest) {
+                last = other.last;
+            }
+        }
+
+        MetricStats toStats() {
+            return new MetricStats(min, max, sum, last);
+        }
+    }
+}
@@ -2,17 +2,28 @@ package com.sentinelagent.backend.telemetry.internal.service;
 
 import com.sentinelagent.backend.telemetry.dto.TelemetryAiSummaryResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.dto.TelemetryMetricsResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
-import com.sentinelagent.backend.telemetry.internal.domain.MetricReport;
+import com.sentinelagent.backend.telemetry.dto.TelemetrySeriesResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryWindowStats;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface TelemetryService {
-    MetricReport processAndSaveTelemetry(TelemetryData data);
+    /** Stores one sample; empty when it is a redelivery of a sample that was already stored. */
+    Optional<TelemetryResponse> processAndSaveTelemetry(TelemetryData data);
+    TelemetryBatchResult processAndSaveTelemetryBatch(List<TelemetryData> batch);
     List<TelemetryResponse> getHistory(String agentId, LocalDateTime from, LocalDateTime to);
+    List<TelemetryMetricsResponse> getHistoryMetrics(String agentId, LocalDateTime from, LocalDateTime to);
+    void streamHistory(String agentId, LocalDateTime from, LocalDateTime to, Consumer<TelemetryResponse> sink);
+    TelemetrySeriesResponse getHistorySeries(String agentId, LocalDateTime from, LocalDateTime to, int points);
     Optional<TelemetryResponse> getLatest(String agentId);
     TelemetryAiSummaryResponse getAiSummary(String agentId, LocalDateTime from, LocalDateTime to);
+    /** Statistics over the agent's samples of the last {@code window} held in memory; empty when there are none. */
+    Optional<TelemetryWindowStats> getRecentWindow(String agentId, Duration window);
 }
 
@@ -1,51 +1,173 @@
 package com.sentinelagent.backend.telemetry.internal.service;
 
+import com.mongodb.bulk.BulkWriteError;
 import com.sentinelagent.backend.agent.api.AgentValidationService;
 import com.sentinelagent.backend.agent.api.InvalidAgentCredentialsException;
 import com.sentinelagent.backend.telemetry.dto.TelemetryAiSummaryResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.dto.TelemetryMetricsResponse;
 import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetrySeriesResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryWindowStats;
 import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
-import com.sentinelagent.backend.telemetry.internal.domain.MetricReport;
 import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
-import com.sentinelagent.backend.telemetry.internal.mapper.MetricReportMapper;
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
 import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryMapper;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryStringInterner;
+import com.sentinelagent.backend.telemetry.internal.repository.MetricRollupRepository;
 import com.sentinelagent.backend.telemetry.internal.repository.SpringDataMetricReportRepository;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryIngestMetrics.Stage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TelemetryServiceImpl implements TelemetryService {
 
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
     private final AgentValidationService agentValidationService;
     private final SpringDataMetricReportRepository metricReportRepository;
-    private final MetricReportMapper metricReportMapper;
     private final TelemetryMapper telemetryMapper;
     private final ApplicationEventPublisher eventPublisher;
+    private final AgentSnapshotStore snapshotStore;
+    private final TelemetryRollupAggregator rollupAggregator;
+    private final MetricRollupRepository rollupRepository;
+    private final LatestTelemetryCache latestCache;
+    private final TelemetryLiveBroadcaster liveBroadcaster;
+    private final FleetLeaderboard fleetLeaderboard;
+    private final TelemetryDeduplicator deduplicator;
+    private final TelemetryStringInterner stringInterner;
+    private final RecentMetricsStore recentMetrics;
+    private final TelemetryIngestMetrics ingestMetrics;
 
     @Override
-    public MetricReport processAndSaveTelemetry(TelemetryData data) {
-        AgentValidationService.AgentValidationResult validationResult = agentValidationService
-                .validate(data.getAgentId(), data.getApiKey());
-        if (validationResult == null) {
-            throw new InvalidAgentCredentialsException("Unknown agent");
+    public Optional<TelemetryResponse> processAndSaveTelemetry(TelemetryData data) {
+        ingestMetrics.time(Stage.VALIDATE, () -> validateAgent(data));
+        String idempotencyKey = TelemetryDeduplicator.keyOf(data);
+        if (ingestMetrics.time(Stage.DEDUPLICATE, () -> deduplicator.isDuplicate(idempotencyKey))) {
+            ingestMetrics.duplicate();
+            return Optional.empty();
         }
+        ingestMetrics.time(Stage.INTERN, () -> stringInterner.internStrings(data));
+        AgentSnapshotStore.Resolution resolution = ingestMetrics.time(Stage.RESOLVE, () -> snapshotStore.resolve(data));
 
-        MetricReport report = telemetryMapper.toMetricReport(data);
-        MetricReportDocument saved = metricReportRepository.save(metricReportMapper.toDocument(report));
-        MetricReport savedReport = metricReportMapper.toDomain(saved);
+        MetricReportDocument document = ingestMetrics.time(Stage.MAP, () -> telemetryMapper.toDocument(data));
+        document.setIdempotencyKey(idempotencyKey);
+        MetricReportDocument saved;
+        try {
+            saved = ingestMetrics.time(Stage.STORE, () -> metricReportRepository.save(document));
+        } catch (DuplicateKeyException ex) {
+            snapshotStore.commit(resolution);
+            deduplicator.recordStored(idempotencyKey);
+            deduplicator.recordIndexDuplicate();
+            ingestMetrics.duplicate();
+            return Optional.empty();
+        }
+        // Only a stored sample may become the base of the next delta; a failed write is retried against the old one
+        snapshotStore.commit(resolution);
+        deduplicator.recordStored(idempotencyKey);
+        ingestMetrics.stored(1);
+        TelemetryResponse response = ingestMetrics.time(Stage.VIEWS, () -> afterStore(saved));
 
-        TelemetryReceivedEvent event = telemetryMapper.toEvent(savedReport);
-        eventPublisher.publishEvent(event);
-        return savedReport;
+        // Analysis needs the complete lists; a delta we could not expand only contributes its metrics
+        if (resolution.isComplete()) {
+            TelemetryReceivedEvent event = telemetryMapper.toEvent(saved.getId(), response);
+            ingestMetrics.time(Stage.PUBLISH, () -> eventPublisher.publishEvent(event));
+        }
+        return Optional.of(response);
+    }
+
+    @Override
+    public TelemetryBatchResult processAndSaveTelemetryBatch(List<TelemetryData> batch) {
+        List<TelemetryBatchResult.Failure> failures = new ArrayList<>();
+        List<MetricReportDocument> documents = new ArrayList<>(batch.size());
+        List<Integer> positions = new ArrayList<>(batch.size());
+        List<AgentSnapshotStore.Resolution> resolutions = new ArrayList<>(batch.size());
+        Map<String, AgentSnapshotStore.Resolution> pendingSnapshots = new HashMap<>();
+
+        // One poll usually carries several samples per agent; check each credential pair only once.
+        Set<String> acceptedCredentials = new HashSet<>();
+        Map<String, RuntimeException> rejectedCredentials = new HashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            TelemetryData data = batch.get(i);
+            try {
+                ingestMetrics.time(Stage.VALIDATE, () -> validateAgentOnce(data, acceptedCredentials, rejectedCredentials));
+                String idempotencyKey = TelemetryDeduplicator.keyOf(data);
+                if (ingestMetrics.time(Stage.DEDUPLICATE, () -> deduplicator.isDuplicate(idempotencyKey))) {
+                    ingestMetrics.duplicate();
+                    continue;
+                }
+                ingestMetrics.time(Stage.INTERN, () -> stringInterner.internStrings(data));
+                AgentSnapshotStore.Resolution resolution = ingestMetrics.time(Stage.RESOLVE,
+                        () -> snapshotStore.resolve(data, pendingSnapshots));
+                MetricReportDocument document = ingestMetrics.time(Stage.MAP, () -> telemetryMapper.toDocument(data));
+                document.setIdempotencyKey(idempotencyKey);
+                documents.add(document);
+                positions.add(i);
+                resolutions.add(resolution);
+            } catch (Exception ex) {
+                failures.add(new TelemetryBatchResult.Failure(i, ex));
+            }
+        }
+
+        Set<Integer> rejectedDocuments = new HashSet<>();
+        Set<Integer> failedDocuments = new HashSet<>();
+        try {
+            List<BulkWriteError> errors = ingestMetrics.time(Stage.STORE_BATCH, () -> metricReportRepository.insertUnordered(documents));
+            for (BulkWriteError error : errors) {
+                rejectedDocuments.add(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY_ERROR) {
+                    // Already stored, by an earlier delivery or within this batch; not a failure
+                    deduplicator.recordIndexDuplicate();
+                    ingestMetrics.duplicate();
+                    continue;
+                }
+                failedDocuments.add(error.getIndex());
+                failures.add(new TelemetryBatchResult.Failure(positions.get(error.getIndex()), toException(error)));
+            }
+        } catch (RuntimeException ex) {
+            positions.forEach(position -> failures.add(new TelemetryBatchResult.Failure(position, ex)));
+            return new TelemetryBatchResult(List.of(), failures);
+        }
+
+        List<TelemetryResponse> saved = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            // In batch order, so a delta resolved on top of an earlier sample of this batch finds it committed
+            if (!failedDocuments.contains(i)) {
+                snapshotStore.commit(resolutions.get(i));
+                deduplicator.recordStored(documents.get(i).getIdempotencyKey());
+            }
+            if (!rejectedDocuments.contains(i)) {
+                MetricReportDocument document = documents.get(i);
+                TelemetryResponse response = ingestMetrics.time(Stage.VIEWS, () -> afterStore(document));
+                saved.add(response);
+                if (resolutions.get(i).isComplete()) {
+                    TelemetryReceivedEvent event = telemetryMapper.toEvent(document.getId(), response);
+                    ingestMetrics.time(Stage.PUBLISH, () -> eventPublisher.publishEvent(event));
+                }
+            }
+        }
+        ingestMetrics.stored(saved.size());
+        return new TelemetryBatchResult(saved, failures);
     }
 
     @Override
@@ -53,26 +175,104 @@ public class TelemetryServiceImpl implements TelemetryService {
         return metricReportRepository
                 .findByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(agentId, from, to)
                 .stream()
-                .map(metricReportMapper::toDomain)
                 .map(telemetryMapper::toResponse)
                 .toList();
     }
 
+    @Override
+    public List<TelemetryMetricsResponse> getHistoryMetrics(String agentId, LocalDateTime from, LocalDateTime to) {
+        return metricReportRepository
+                .findSamplesByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(agentId, from, to)
+                .stream()
+                .map(telemetryMapper::toMetricsResponse)
+                .toList();
+    }
+
+    @Override
+    public void streamHistory(String agentId, LocalDateTime from, LocalDateTime to, Consumer<TelemetryResponse> sink) {
+        try (Stream<MetricReportDocument> documents = metricReportRepository
+                .streamByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(agentId, from, to)) {
+            documents.map(telemetryMapper::toResponse).forEach(sink);
+        }
+    }
+
+    @Override
+    public TelemetrySeriesResponse getHistorySeries(String agentId, LocalDateTime from, LocalDateTime to, int points) {
+        RollupResolution resolution = RollupResolution.coarsestFor(Duration.between(from, to), points);
+
+        List<TelemetrySeriesResponse.SeriesPoint> series = resolution.isRollup()
+                ? rollupRepository.findSeries(resolution, agentId, resolution.bucketStart(from), to).stream()
+                        .map(telemetryMapper::toSeriesPoint)
+                        .toList()
+                : metricReportRepository.findSamplesByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(agentId, from, to).stream()
+                        .map(telemetryMapper::toSeriesPoint)
+                        .toList();
+        return new TelemetrySeriesResponse(agentId, resolution.name(), resolution.getStep().toSeconds(), from, to, series);
+    }
+
     @Override
     public Optional<TelemetryResponse> getLatest(String agentId) {
-        return metricReportRepository.findTopByAgentIdOrderByReceivedAtDesc(agentId)
-                .map(metricReportMapper::toDomain)
+        Optional<TelemetryResponse> cached = latestCache.get(agentId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<TelemetryResponse> stored = metricReportRepository.findTopByAgentIdOrderByReceivedAtDesc(agentId)
                 .map(telemetryMapper::toResponse);
+        stored.ifPresent(latestCache::offer);
+        return stored;
     }
 
     @Override
     public TelemetryAiSummaryResponse getAiSummary(String agentId, LocalDateTime from, LocalDateTime to) {
-        List<MetricReport> reports = metricReportRepository
-                .findByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(agentId, from, to)
-                .stream()
-                .map(metricReportMapper::toDomain)
-                .toList();
-        return telemetryMapper.toAiSummary(agentId, reports, from, to);
+        return telemetryMapper.toAiSummary(agentId, recentMetrics.summarize(agentId, from, to)
+                .or(() -> metricReportRepository.summarize(agentId, from, to)));
+    }
+
+    @Override
+    public Optional<TelemetryWindowStats> getRecentWindow(String agentId, Duration window) {
+        LocalDateTime to = LocalDateTime.now();
+        return recentMetrics.windowStats(agentId, to.minus(window), to);
+    }
+
+    // In-memory views fed by every stored report: rollups, latest cache, live streams, leaderboards and recent windows
+    private TelemetryResponse afterStore(MetricReportDocument document) {
+        TelemetryResponse response = telemetryMapper.toResponse(document);
+        rollupAggregator.record(response);
+        latestCache.offer(response);
+        liveBroadcaster.publish(response);
+        fleetLeaderboard.update(response);
+        recentMetrics.record(response);
+        return response;
+    }
+
+    private void validateAgent(TelemetryData data) {
+        AgentValidationService.AgentValidationResult validationResult = agentValidationService
+                .validate(data.getAgentId(), data.getApiKey());
+        if (validationResult == null) {
+            throw new InvalidAgentCredentialsException("Unknown agent");
+        }
+    }
+
+    private void validateAgentOnce(TelemetryData data, Set<String> accepted, Map<String, RuntimeException> rejected) {
+        String credentials = data.getAgentId() + ':' + data.getApiKey();
+        if (accepted.contains(credentials)) {
+            return;
+        }
+        RuntimeException previous = rejected.get(credentials);
+        if (previous != null) {
+            throw previous;
+        }
+        try {
+            validateAgent(data);
+            accepted.add(credentials);
+        } catch (RuntimeException ex) {
+            rejected.put(credentials, ex);
+            throw ex;
+        }
+    }
+
+    private Exception toException(BulkWriteError error) {
+        return new DataIntegrityViolationException(error.getMessage());
     }
 }
 
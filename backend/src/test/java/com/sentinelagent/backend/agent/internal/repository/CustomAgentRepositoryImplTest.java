@@ -0,0 +1,104 @@
+package com.sentinelagent.backend.agent.internal.repository;
+
+import com.sentinelagent.backend.agent.api.AgentValidationService;
+import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
+import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
+import com.sentinelagent.backend.agent.internal.repository.CustomAgentRepository.HeartbeatUpdate;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialVerifier;
+import com.sentinelagent.backend.agent.internal.security.VerifiedAgent;
+import com.sentinelagent.backend.agent.internal.service.AgentHeartbeatBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomAgentRepositoryImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private CustomAgentRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AgentDocument.class)).thenReturn(bulkOperations);
+        repository = new CustomAgentRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void regularFlush_reactivatesAgentSetInactiveWhileItsCredentialsWereCachedAsActive() {
+        // The cache still says ACTIVE, the database says INACTIVE
+        AgentCredentialVerifier verifier = mock(AgentCredentialVerifier.class);
+        when(verifier.verify("agent-1", "key")).thenReturn(new VerifiedAgent("agent-1", "host-1", AgentStatus.ACTIVE.name()));
+        SpringDataAgentRepository agentRepository = mock(SpringDataAgentRepository.class);
+        doAnswer(invocation -> {
+            repository.updateHeartbeats(invocation.getArgument(0, Collection.class));
+            return null;
+        }).when(agentRepository).updateHeartbeats(any());
+        AgentHeartbeatBuffer buffer = new AgentHeartbeatBuffer(agentRepository, new SimpleMeterRegistry(), 10_000);
+
+        new AgentValidationService(verifier, buffer).validate("agent-1", "key");
+        buffer.flushAll();
+
+        Document set = renderedSet(captureUpdate());
+        assertEquals(AgentStatus.ACTIVE.name(), evaluateStatus(set, AgentStatus.INACTIVE.name()));
+    }
+
+    @Test
+    void updateHeartbeats_leavesOtherStatusesToTheDatabase() {
+        LocalDateTime heartbeat = LocalDateTime.now();
+
+        repository.updateHeartbeats(List.of(new HeartbeatUpdate("agent-1", heartbeat, true)));
+
+        Document set = renderedSet(captureUpdate());
+        assertEquals(heartbeat, set.get("lastHeartbeat"));
+        assertEquals(AgentStatus.REVOKED.name(), evaluateStatus(set, AgentStatus.REVOKED.name()));
+        assertEquals(AgentStatus.ACTIVE.name(), evaluateStatus(set, AgentStatus.ACTIVE.name()));
+    }
+
+    private UpdateDefinition captureUpdate() {
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(bulkOperations).updateOne(any(Query.class), update.capture());
+        verify(bulkOperations).execute();
+        return update.getValue();
+    }
+
+    private static Document renderedSet(UpdateDefinition update) {
+        Document set = new Document();
+        for (Document stage : assertInstanceOf(AggregationUpdate.class, update).toPipeline(Aggregation.DEFAULT_CONTEXT)) {
+            set.putAll(stage.get("$set", Document.class));
+        }
+        return set;
+    }
+
+    // Applies the rendered {$cond: {if: {$eq: ["$status", x]}, then: y, else: "$status"}} to a stored status
+    private static String evaluateStatus(Document set, String storedStatus) {
+        Document cond = set.get("status", Document.class).get("$cond", Document.class);
+        List<?> eq = cond.get("if", Document.class).getList("$eq", Object.class);
+        assertEquals("$status", eq.get(0));
+        assertEquals("$status", cond.get("else"));
+        return storedStatus.equals(eq.get(1)) ? (String) cond.get("then") : storedStatus;
+    }
+}
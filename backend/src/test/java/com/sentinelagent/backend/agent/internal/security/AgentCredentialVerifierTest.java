@@ -0,0 +1,104 @@
+package com.sentinelagent.backend.agent.internal.security;
+
+import com.sentinelagent.backend.agent.api.InvalidAgentCredentialsException;
+import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
+import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
+import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgentCredentialVerifierTest {
+
+    @Mock
+    private SpringDataAgentRepository agentRepository;
+    @Mock
+    private ApiKeyService apiKeyService;
+
+    private AgentCredentialCache credentialCache;
+    private AgentCredentialCacheInvalidator invalidator;
+    private AgentCredentialVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        credentialCache = new AgentCredentialCache(300, 300, 100);
+        invalidator = new AgentCredentialCacheInvalidator(credentialCache);
+        verifier = new AgentCredentialVerifier(agentRepository, apiKeyService, credentialCache);
+    }
+
+    @Test
+    void verify_cachesVerifiedCredentials() {
+        when(agentRepository.findById("agent-1")).thenReturn(Optional.of(agent(AgentStatus.ACTIVE)));
+        when(apiKeyService.validateApiKey("key", "hash")).thenReturn(true);
+
+        verifier.verify("agent-1", "key");
+        verifier.verify("agent-1", "key");
+
+        verify(agentRepository, times(1)).findById("agent-1");
+        assertNotNull(credentialCache.get("agent-1", "key"));
+    }
+
+    @Test
+    void verify_doesNotCacheAgentRevokedWhileItsKeyWasChecked() {
+        AgentDocument revoked = agent(AgentStatus.REVOKED);
+        when(agentRepository.findById("agent-1"))
+                .thenReturn(Optional.of(agent(AgentStatus.ACTIVE)))
+                .thenReturn(Optional.of(revoked));
+        when(apiKeyService.validateApiKey("key", "hash")).thenAnswer(invocation -> {
+            invalidator.onAfterSave(new AfterSaveEvent<>(revoked, null, "agents"));
+            return true;
+        });
+
+        verifier.verify("agent-1", "key");
+
+        assertNull(credentialCache.get("agent-1", "key"));
+        assertThrows(InvalidAgentCredentialsException.class, () -> verifier.verify("agent-1", "key"));
+    }
+
+    @Test
+    void onAfterSave_statusChangeWithTheSameKey_evictsCachedCredentials() {
+        when(agentRepository.findById("agent-1")).thenReturn(Optional.of(agent(AgentStatus.ACTIVE)));
+        when(apiKeyService.validateApiKey("key", "hash")).thenReturn(true);
+        verifier.verify("agent-1", "key");
+
+        invalidator.onAfterSave(new AfterSaveEvent<>(agent(AgentStatus.INACTIVE), null, "agents"));
+
+        assertNull(credentialCache.get("agent-1", "key"));
+    }
+
+    @Test
+    void verify_afterStatusCheckInterval_seesRevocationMadeOutsideTheApplication() {
+        AgentCredentialVerifier checkingVerifier = new AgentCredentialVerifier(agentRepository, apiKeyService,
+                new AgentCredentialCache(300, 0, 100));
+        when(agentRepository.findById("agent-1"))
+                .thenReturn(Optional.of(agent(AgentStatus.ACTIVE)))
+                .thenReturn(Optional.of(agent(AgentStatus.INACTIVE)))
+                .thenReturn(Optional.of(agent(AgentStatus.REVOKED)));
+        when(apiKeyService.validateApiKey("key", "hash")).thenReturn(true);
+
+        checkingVerifier.verify("agent-1", "key");
+        assertEquals(AgentStatus.INACTIVE.name(), checkingVerifier.verify("agent-1", "key").status());
+        assertThrows(InvalidAgentCredentialsException.class, () -> checkingVerifier.verify("agent-1", "key"));
+
+        // Only the first check needed BCrypt; the re-checks matched the hash the key was verified against
+        verify(apiKeyService, times(1)).validateApiKey("key", "hash");
+    }
+
+    private static AgentDocument agent(AgentStatus status) {
+        return AgentDocument.builder()
+                .id("agent-1")
+                .hostname("host-1")
+                .apiKeyHash("hash")
+                .status(status.name())
+                .build();
+    }
+}
@@ -9,11 +9,13 @@ import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
 import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
 import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentCommandRepository;
 import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialCache;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialVerifier;
 import com.sentinelagent.backend.agent.internal.security.ApiKeyService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -23,6 +25,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,10 +38,18 @@ class AgentCommandServiceImplTest {
     private SpringDataAgentCommandRepository commandRepository;
     @Mock
     private ApiKeyService apiKeyService;
+    @Mock
+    private AgentHeartbeatBuffer heartbeatBuffer;
 
-    @InjectMocks
     private AgentCommandServiceImpl commandService;
 
+    @BeforeEach
+    void setUp() {
+        AgentCredentialVerifier credentialVerifier = new AgentCredentialVerifier(
+                agentRepository, apiKeyService, new AgentCredentialCache(300, 300, 100));
+        commandService = new AgentCommandServiceImpl(agentRepository, commandRepository, credentialVerifier, heartbeatBuffer);
+    }
+
     @Test
     void issueCommand_persistsPendingCommandWithDefaults() {
         AgentDocument agent = AgentDocument.builder().id("agent-1").build();
@@ -83,7 +95,7 @@ class AgentCommandServiceImplTest {
 
         assertThrows(InvalidAgentCredentialsException.class, () -> commandService.getPendingCommands("agent-1", "bad-key"));
         verify(commandRepository, never()).findByAgentIdAndStatusOrderByIssuedAtAsc(any(), any());
-        verify(agentRepository, never()).save(any());
+        verify(heartbeatBuffer, never()).record(any(), any(), anyBoolean());
     }
 
     @Test
@@ -98,7 +110,7 @@ class AgentCommandServiceImplTest {
         when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
 
         assertThrows(InvalidAgentCredentialsException.class, () -> commandService.getPendingCommands("agent-1", "plain-key"));
-        verify(agentRepository, never()).save(any());
+        verify(heartbeatBuffer, never()).record(any(), any(), anyBoolean());
     }
 
     @Test
@@ -122,13 +134,13 @@ class AgentCommandServiceImplTest {
         when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
         when(commandRepository.findById("cmd-1")).thenReturn(Optional.of(command));
         when(commandRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
-        when(agentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         AgentCommandDocument result = commandService.updateCommandResult("agent-1", "cmd-1", "plain-key", request);
 
         assertEquals("SUCCESS", result.getStatus());
         assertEquals("done", result.getResultMessage());
         assertNotNull(result.getExecutedAt());
+        verify(heartbeatBuffer).record(eq("agent-1"), any(LocalDateTime.class), eq(false));
     }
 
     @Test
@@ -148,7 +160,6 @@ class AgentCommandServiceImplTest {
         when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
         when(commandRepository.findById("cmd-1")).thenReturn(Optional.of(command));
         when(commandRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
-        when(agentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         AgentCommandDocument result = commandService.updateCommandResult("agent-1", "cmd-1", "plain-key", AgentCommandResultRequest.builder().build());
 
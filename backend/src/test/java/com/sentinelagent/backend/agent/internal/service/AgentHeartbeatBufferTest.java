@@ -0,0 +1,115 @@
+package com.sentinelagent.backend.agent.internal.service;
+
+import com.sentinelagent.backend.agent.internal.repository.CustomAgentRepository.HeartbeatUpdate;
+import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgentHeartbeatBufferTest {
+
+    @Mock
+    private SpringDataAgentRepository agentRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AgentHeartbeatBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new AgentHeartbeatBuffer(agentRepository, meterRegistry, 60_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushAll_coalescesHeartbeatsPerAgent() {
+        LocalDateTime first = LocalDateTime.now().minusSeconds(5);
+        LocalDateTime latest = LocalDateTime.now();
+        buffer.record("agent-1", first, true);
+        buffer.record("agent-1", latest, false);
+        buffer.record("agent-2", latest, false);
+
+        buffer.flushAll();
+
+        ArgumentCaptor<Collection<HeartbeatUpdate>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(agentRepository).updateHeartbeats(captor.capture());
+        List<HeartbeatUpdate> updates = new ArrayList<>(captor.getValue());
+        assertEquals(2, updates.size());
+        assertTrue(updates.contains(new HeartbeatUpdate("agent-1", latest, true)));
+        assertTrue(updates.contains(new HeartbeatUpdate("agent-2", latest, false)));
+        assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushDue_beforeInterval_writesOnlyReactivations() {
+        LocalDateTime now = LocalDateTime.now();
+        buffer.record("agent-1", now, true);
+        buffer.record("agent-2", now, false);
+
+        buffer.flushDue();
+
+        ArgumentCaptor<Collection<HeartbeatUpdate>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(agentRepository).updateHeartbeats(captor.capture());
+        assertEquals(List.of(new HeartbeatUpdate("agent-1", now, true)), new ArrayList<>(captor.getValue()));
+        assertEquals(1, buffer.pendingCount());
+    }
+
+    @Test
+    void flushDue_keepsActiveAgentHeartbeatUntilTheFullFlushInterval() throws InterruptedException {
+        AgentHeartbeatBuffer shortInterval = new AgentHeartbeatBuffer(agentRepository, meterRegistry, 200);
+        shortInterval.record("agent-1", LocalDateTime.now(), false);
+
+        shortInterval.flushDue();
+        verifyNoInteractions(agentRepository);
+        assertEquals(1, shortInterval.pendingCount());
+
+        Thread.sleep(250);
+        shortInterval.flushDue();
+        verify(agentRepository).updateHeartbeats(any());
+        assertEquals(0, shortInterval.pendingCount());
+    }
+
+    @Test
+    void flushDue_afterFailedWrite_waitsAFlushIntervalAndCountsTheFailure() {
+        buffer.record("agent-1", LocalDateTime.now(), true);
+        doThrow(new RuntimeException("connection refused")).when(agentRepository).updateHeartbeats(any());
+
+        buffer.flushDue();
+        buffer.flushDue();
+
+        verify(agentRepository, times(1)).updateHeartbeats(any());
+        assertEquals(1, buffer.pendingCount());
+        assertEquals(1.0, meterRegistry.counter("agent.heartbeat.flush.failures").count());
+    }
+
+    @Test
+    void flushAll_whenStoreFails_keepsUpdatesForNextAttempt() {
+        buffer.record("agent-1", LocalDateTime.now(), false);
+        doThrow(new RuntimeException("connection refused")).when(agentRepository).updateHeartbeats(any());
+
+        buffer.flushAll();
+
+        assertEquals(1, buffer.pendingCount());
+    }
+
+    @Test
+    void flushAll_withNothingPending_skipsStore() {
+        buffer.flushAll();
+
+        verifyNoInteractions(agentRepository);
+    }
+}
@@ -10,12 +10,14 @@ import com.sentinelagent.backend.agent.internal.domain.AgentDocument;
 import com.sentinelagent.backend.agent.internal.domain.AgentStatus;
 import com.sentinelagent.backend.agent.internal.mapper.AgentMapper;
 import com.sentinelagent.backend.agent.internal.repository.SpringDataAgentRepository;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialCache;
+import com.sentinelagent.backend.agent.internal.security.AgentCredentialVerifier;
 import com.sentinelagent.backend.agent.internal.security.ApiKeyService;
 import com.sentinelagent.backend.agent.internal.service.AgentService.AgentStatsDto;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -25,6 +27,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,11 +39,19 @@ class AgentServiceImplTest {
     @Mock
     private ApiKeyService apiKeyService;
     @Mock
+    private AgentHeartbeatBuffer heartbeatBuffer;
+    @Mock
     private AgentMapper mapper;
 
-    @InjectMocks
     private AgentServiceImpl agentService;
 
+    @BeforeEach
+    void setUp() {
+        AgentCredentialVerifier credentialVerifier = new AgentCredentialVerifier(
+                agentRepository, apiKeyService, new AgentCredentialCache(300, 300, 100));
+        agentService = new AgentServiceImpl(agentRepository, apiKeyService, mapper, credentialVerifier, heartbeatBuffer);
+    }
+
     @Test
     void registerAgent_savesNewAgentAndReturnsResponse() {
         AgentRegistrationRequest request = AgentRegistrationRequest.builder()
@@ -110,15 +122,52 @@ class AgentServiceImplTest {
 
         when(agentRepository.findById(agent.getId())).thenReturn(Optional.of(agent));
         when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
-        when(agentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         agentService.processHeartbeat("plain-key", request);
 
-        ArgumentCaptor<AgentDocument> captor = ArgumentCaptor.forClass(AgentDocument.class);
-        verify(agentRepository).save(captor.capture());
-        AgentDocument saved = captor.getValue();
-        assertTrue(saved.getLastHeartbeat().isAfter(originalHeartbeat));
-        assertEquals(AgentStatus.ACTIVE.name(), saved.getStatus());
+        ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(heartbeatBuffer).record(eq("agent-1"), captor.capture(), eq(false));
+        assertTrue(captor.getValue().isAfter(originalHeartbeat));
+        verify(agentRepository, never()).save(any());
+    }
+
+    @Test
+    void processHeartbeat_reusesVerifiedCredentials() {
+        AgentDocument agent = AgentDocument.builder()
+                .id("agent-1")
+                .status(AgentStatus.ACTIVE.name())
+                .apiKeyHash("hash")
+                .build();
+        HeartbeatRequest request = HeartbeatRequest.builder().agentId(agent.getId()).build();
+
+        when(agentRepository.findById(agent.getId())).thenReturn(Optional.of(agent));
+        when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
+
+        agentService.processHeartbeat("plain-key", request);
+        agentService.processHeartbeat("plain-key", request);
+
+        verify(agentRepository, times(1)).findById("agent-1");
+        verify(apiKeyService, times(1)).validateApiKey("plain-key", "hash");
+        verify(heartbeatBuffer, times(2)).record(eq("agent-1"), any(), eq(false));
+    }
+
+    @Test
+    void processHeartbeat_withDifferentKey_verifiesAgainAndRejects() {
+        AgentDocument agent = AgentDocument.builder()
+                .id("agent-1")
+                .status(AgentStatus.ACTIVE.name())
+                .apiKeyHash("hash")
+                .build();
+        HeartbeatRequest request = HeartbeatRequest.builder().agentId(agent.getId()).build();
+
+        when(agentRepository.findById(agent.getId())).thenReturn(Optional.of(agent));
+        when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
+        when(apiKeyService.validateApiKey("bad-key", "hash")).thenReturn(false);
+
+        agentService.processHeartbeat("plain-key", request);
+
+        assertThrows(InvalidAgentCredentialsException.class, () -> agentService.processHeartbeat("bad-key", request));
+        verify(heartbeatBuffer, times(1)).record(any(), any(), anyBoolean());
     }
 
     @Test
@@ -133,15 +182,10 @@ class AgentServiceImplTest {
 
         when(agentRepository.findById(agent.getId())).thenReturn(Optional.of(agent));
         when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
-        when(agentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         agentService.processHeartbeat("plain-key", request);
 
-        ArgumentCaptor<AgentDocument> captor = ArgumentCaptor.forClass(AgentDocument.class);
-        verify(agentRepository).save(captor.capture());
-        AgentDocument saved = captor.getValue();
-        assertEquals(AgentStatus.ACTIVE.name(), saved.getStatus());
-        assertNotNull(saved.getLastHeartbeat());
+        verify(heartbeatBuffer).record(eq("agent-1"), any(LocalDateTime.class), eq(true));
     }
 
     @Test
@@ -157,7 +201,7 @@ class AgentServiceImplTest {
         when(apiKeyService.validateApiKey("bad-key", "hash")).thenReturn(false);
 
         assertThrows(InvalidAgentCredentialsException.class, () -> agentService.processHeartbeat("bad-key", request));
-        verify(agentRepository, never()).save(any());
+        verify(heartbeatBuffer, never()).record(any(), any(), anyBoolean());
     }
 
     @Test
@@ -173,7 +217,7 @@ class AgentServiceImplTest {
         when(apiKeyService.validateApiKey("plain-key", "hash")).thenReturn(true);
 
         assertThrows(InvalidAgentCredentialsException.class, () -> agentService.processHeartbeat("plain-key", request));
-        verify(agentRepository, never()).save(any());
+        verify(heartbeatBuffer, never()).record(any(), any(), anyBoolean());
     }
 
     @Test
@@ -0,0 +1,76 @@
+package com.sentinelagent.backend.alert.internal.listener;
+
+import com.sentinelagent.backend.alert.internal.service.AlertService;
+import com.sentinelagent.backend.securityanalysis.event.SecurityAlertGeneratedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SecurityAlertListenerTest {
+
+    @Test
+    void onSecurityAlertGenerated_oneEvent_storesAndCountsOneAlert() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ListenerConfig.class)) {
+            SecurityAlertGeneratedEvent event = new SecurityAlertGeneratedEvent("agent-1", "high", "Port scan",
+                    "Many connections", "Block the source", LocalDateTime.now());
+
+            // Transaction management is enabled, but the analysis workers publish outside any transaction
+            context.publishEvent(event);
+
+            verify(context.getBean(AlertService.class), times(1)).save(any());
+            assertEquals(1.0, context.getBean(MeterRegistry.class).get("security.alerts").tag("severity", "HIGH").counter().count());
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import(SecurityAlertListener.class)
+    static class ListenerConfig {
+
+        @Bean
+        AlertService alertService() {
+            return mock(AlertService.class);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+}
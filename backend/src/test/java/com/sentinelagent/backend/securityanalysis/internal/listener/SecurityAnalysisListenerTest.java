@@ -0,0 +1,86 @@
+package com.sentinelagent.backend.securityanalysis.internal.listener;
+
+import com.sentinelagent.backend.securityanalysis.event.SecurityAlertGeneratedEvent;
+import com.sentinelagent.backend.securityanalysis.internal.domain.AnalysisResult;
+import com.sentinelagent.backend.securityanalysis.internal.service.AnalysisIntakeQueue;
+import com.sentinelagent.backend.securityanalysis.internal.service.SecurityAnalysisService;
+import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityAnalysisListenerTest {
+
+    @Mock
+    private SecurityAnalysisService analysisService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ThreadPoolTaskExecutor workerExecutor;
+    private SecurityAnalysisListener listener;
+
+    @BeforeEach
+    void setUp() {
+        workerExecutor = new SecurityAnalysisWorkerConfig().securityAnalysisWorkerExecutor(2, 5);
+        workerExecutor.initialize();
+        AnalysisIntakeQueue intakeQueue = new AnalysisIntakeQueue(meterRegistry, 10, "drop-oldest", 2, 90, 10_485_760, 100, 60);
+        listener = new SecurityAnalysisListener(analysisService, eventPublisher, intakeQueue, meterRegistry, workerExecutor, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stopWorkers();
+        workerExecutor.shutdown();
+    }
+
+    @Test
+    void workers_analyzeQueuedSamplesAndPublishAlerts() {
+        when(analysisService.analyzeTelemetry(any())).thenReturn(new AnalysisResult("HIGH", "Port scan", "Many ports", "Block"));
+        listener.startWorkers();
+
+        listener.onTelemetryReceived(event("r1"));
+
+        verify(eventPublisher, timeout(5_000)).publishEvent(any(SecurityAlertGeneratedEvent.class));
+    }
+
+    @Test
+    void stopWorkers_letsTheAnalysisInFlightFinishAndIdleWorkersReturn() throws InterruptedException {
+        CountDownLatch analyzing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(analysisService.analyzeTelemetry(any())).thenAnswer(invocation -> {
+            analyzing.countDown();
+            release.await();
+            return new AnalysisResult("LOW", null, null, null);
+        });
+        listener.startWorkers();
+        listener.onTelemetryReceived(event("r1"));
+        assertTrue(analyzing.await(5, TimeUnit.SECONDS));
+
+        listener.stopWorkers();
+        release.countDown();
+        workerExecutor.shutdown();
+
+        assertTrue(workerExecutor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+        verify(analysisService, times(1)).analyzeTelemetry(any());
+    }
+
+    private static TelemetryReceivedEvent event(String reportId) {
+        return new TelemetryReceivedEvent(reportId, "agent-1", "host", 10, 40, 0, 0, List.of(), List.of());
+    }
+}
@@ -0,0 +1,106 @@
+package com.sentinelagent.backend.securityanalysis.internal.service;
+
+import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisIntakeQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void dropOldest_keepsNewestSamplesPerAgentAndCountsShed() throws InterruptedException {
+        AnalysisIntakeQueue queue = queue(10, "drop-oldest", 2);
+        queue.offer(event("r1", "a", 10, 0));
+        queue.offer(event("r2", "a", 10, 0));
+        queue.offer(event("r3", "a", 10, 0));
+        queue.offer(event("r4", "b", 10, 0));
+
+        assertEquals(List.of("r2", "r3", "r4"), drain(queue));
+        assertEquals(1.0, meterRegistry.get("security.analysis.shed").tag("reason", "agent-limit").counter().count());
+        assertEquals(4.0, meterRegistry.get("security.analysis.admitted").tag("priority", "false").counter().count());
+    }
+
+    @Test
+    void latestPerAgent_replacesPendingSample() throws InterruptedException {
+        AnalysisIntakeQueue queue = queue(10, "latest-per-agent", 5);
+        queue.offer(event("r1", "a", 10, 0));
+        queue.offer(event("r2", "a", 10, 0));
+
+        assertEquals(List.of("r2"), drain(queue));
+    }
+
+    @Test
+    void prioritySamples_displaceRoutineOnesAndAreTakenFirst() throws InterruptedException {
+        AnalysisIntakeQueue queue = queue(2, "drop-oldest", 5);
+        assertTrue(queue.offer(event("r1", "a", 10, 0)));
+        assertTrue(queue.offer(event("r2", "b", 10, 0)));
+        assertTrue(queue.offer(event("hot-cpu", "c", 95, 0)));
+        assertTrue(queue.offer(event("hot-upload", "d", 10, 50_000_000)));
+        assertFalse(queue.offer(event("r3", "e", 10, 0)));
+
+        assertEquals(List.of("hot-cpu", "hot-upload"), drain(queue));
+        assertEquals(0.0, meterRegistry.get("security.analysis.queued").gauge().value());
+    }
+
+    @Test
+    void unseenPublicAddress_isPriorityOnlyOnce() throws InterruptedException {
+        AnalysisIntakeQueue queue = queue(1, "drop-oldest", 5);
+        queue.offer(withRemote("first", "a", "203.0.113.7"));
+        assertFalse(queue.offer(withRemote("again", "b", "203.0.113.7")));
+        assertFalse(queue.offer(withRemote("private", "c", "192.168.1.20")));
+
+        assertEquals(List.of("first"), drain(queue));
+        assertFalse(AnalysisIntakeQueue.isPublicAddress("172.20.0.4"));
+        assertTrue(AnalysisIntakeQueue.isPublicAddress("172.32.0.4"));
+    }
+
+    @Test
+    void agentAndQueueBothAtTheirLimit_shedOnlyOneSample() throws InterruptedException {
+        AnalysisIntakeQueue queue = queue(2, "drop-oldest", 1);
+        queue.offer(event("a1", "a", 10, 0));
+        queue.offer(event("b1", "b", 10, 0));
+
+        assertTrue(queue.offer(event("a2", "a", 10, 0)));
+
+        assertEquals(List.of("b1", "a2"), drain(queue));
+        assertEquals(1.0, meterRegistry.get("security.analysis.shed").tag("reason", "agent-limit").counter().count());
+        assertEquals(0.0, meterRegistry.get("security.analysis.shed").tag("reason", "capacity").counter().count());
+    }
+
+    @Test
+    void poll_onEmptyQueue_returnsNullAfterTheTimeout() throws InterruptedException {
+        AnalysisIntakeQueue queue = queue(10, "drop-oldest", 2);
+        assertNull(queue.poll(Duration.ofMillis(20)));
+
+        queue.offer(event("r1", "a", 10, 0));
+        assertEquals("r1", queue.poll(Duration.ofMillis(20)).reportId());
+    }
+
+    private AnalysisIntakeQueue queue(int capacity, String policy, int perAgentLimit) {
+        return new AnalysisIntakeQueue(meterRegistry, capacity, policy, perAgentLimit, 90, 10_485_760, 100, 60);
+    }
+
+    private static List<String> drain(AnalysisIntakeQueue queue) throws InterruptedException {
+        List<String> reportIds = new ArrayList<>();
+        while (queue.size() > 0) {
+            reportIds.add(queue.take().reportId());
+        }
+        return reportIds;
+    }
+
+    private static TelemetryReceivedEvent event(String reportId, String agentId, double cpu, long sent) {
+        return new TelemetryReceivedEvent(reportId, agentId, "host", cpu, 40, sent, 0, List.of(), List.of());
+    }
+
+    private static TelemetryReceivedEvent withRemote(String reportId, String agentId, String address) {
+        return new TelemetryReceivedEvent(reportId, agentId, "host", 10, 40, 0, 0, List.of(),
+                List.of(new TelemetryReceivedEvent.NetworkConnectionInfo(100, "curl", address, 443, "ESTABLISHED")));
+    }
+}
@@ -0,0 +1,93 @@
+package com.sentinelagent.backend.telemetry.internal.mapper;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.messaging.TelemetryBinaryCodec;
+import com.sentinelagent.backend.telemetry.internal.messaging.TelemetryKafkaMessage;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Bytes allocated per message on the ingest path, split into decoding the Kafka payload and mapping it to
+ * the stored document, the response and the analysis event. Measured with the per-thread allocation
+ * counter, after a warm-up round. Not a unit test, and needs no database; run {@code main}.
+ *
+ * <p>Arguments: {@code [processes] [connections] [messages]}.
+ */
+public class TelemetryIngestAllocation {
+
+    private static final String REPORT_ID = "652f1c0e9b1e8a3d4c5b6a79";
+
+    public static void main(String[] args) {
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int messages = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        byte[] encoded = TelemetryBinaryCodec.encode(message(processes, connections));
+        TelemetryMapper telemetryMapper = new TelemetryMapper();
+        TelemetryStringInterner interner = new TelemetryStringInterner(100_000);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        long decodeBytes = 0;
+        long mappingBytes = 0;
+        long rows = 0;
+        for (int round = 0; round < 2; round++) {
+            decodeBytes = 0;
+            mappingBytes = 0;
+            for (int i = 0; i < messages; i++) {
+                long start = threads.getCurrentThreadAllocatedBytes();
+                TelemetryKafkaMessage message = TelemetryBinaryCodec.decode(encoded);
+                long decoded = threads.getCurrentThreadAllocatedBytes();
+
+                TelemetryData data = message.toTelemetryData();
+                interner.internStrings(data);
+                MetricReportDocument document = telemetryMapper.toDocument(data);
+                document.setId(REPORT_ID);
+                TelemetryResponse response = telemetryMapper.toResponse(document);
+                TelemetryReceivedEvent event = telemetryMapper.toEvent(document.getId(), response);
+                long mapped = threads.getCurrentThreadAllocatedBytes();
+
+                rows += response.processes().size() + event.networkConnections().size();
+                decodeBytes += decoded - start;
+                mappingBytes += mapped - decoded;
+            }
+        }
+        System.out.printf("%d processes, %d connections (%,d rows mapped)%n", processes, connections, rows);
+        System.out.printf("  decode   %,10d B/message%n", decodeBytes / messages);
+        System.out.printf("  mapping  %,10d B/message%n", mappingBytes / messages);
+    }
+
+    private static TelemetryKafkaMessage message(int processCount, int connectionCount) {
+        Random random = new Random(1);
+        TelemetryData.ProcessData[] processes = new TelemetryData.ProcessData[processCount];
+        for (int i = 0; i < processCount; i++) {
+            processes[i] = new TelemetryData.ProcessData(1000 + i, "worker-" + random.nextInt(40),
+                    random.nextDouble() * 10, i % 3 == 0 ? "root" : "www-data");
+        }
+        TelemetryData.NetworkConnectionData[] connections = new TelemetryData.NetworkConnectionData[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            connections[i] = new TelemetryData.NetworkConnectionData(1000 + i % 20, "worker-" + i % 20, "10.0.0.5",
+                    30000 + i, "203.0.113." + random.nextInt(200), 443, "ESTABLISHED");
+        }
+        TelemetryKafkaMessage message = new TelemetryKafkaMessage();
+        message.setAgentId("agent-1");
+        message.setApiKey("sk_live_key");
+        message.setHostname("web-01");
+        message.setCpuUsage(42.5);
+        message.setRamUsedPercent(63.2);
+        message.setRamTotalMb(16384);
+        message.setDiskUsedPercent(71);
+        message.setDiskTotalGb(512);
+        message.setBytesSentSec(1_000_000);
+        message.setBytesRecvSec(2_000_000);
+        message.setSequence(7L);
+        message.setTimestamp(Instant.now());
+        message.setProcesses(processes);
+        message.setNetworkConnections(connections);
+        return message;
+    }
+}
@@ -0,0 +1,139 @@
+package com.sentinelagent.backend.telemetry.internal.mapper;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.repository.MetricReportDictionaryEncoding;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Heap and storage footprint of the string fields of a fleet's latest samples. Heap: the samples as ingest
+ * keeps them (one per agent, as in the snapshot store), before and after {@link TelemetryStringInterner}.
+ * Storage: BSON bytes per report in the plain and dictionary-encoded layouts, plus deflated bytes as a rough
+ * stand-in for WiredTiger block compression. Not a unit test, and needs no database; run {@code main} with
+ * a large heap, e.g. {@code -Xmx4g}.
+ *
+ * <p>Arguments: {@code [agents] [processesPerAgent] [connectionsPerAgent]}.
+ */
+public class TelemetryStringFootprint {
+
+    private static final String[] USERS = {"root", "www-data", "postgres", "sentinel", "systemd-network", "nobody"};
+    private static final String[] STATES = {"ESTABLISHED", "LISTEN", "TIME_WAIT", "CLOSE_WAIT"};
+    private static final String[] COMMON_PROCESSES = {"systemd", "sshd", "cron", "rsyslogd", "containerd", "dockerd",
+            "nginx", "java", "postgres", "node", "python3", "bash", "kworker/0:1", "journald", "snapd", "chronyd"};
+
+    public static void main(String[] args) {
+        int agents = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int processes = args.length > 1 ? Integer.parseInt(args[1]) : 150;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+
+        long baseline = usedHeap();
+        List<TelemetryData> latest = new ArrayList<>(agents);
+        for (int agent = 0; agent < agents; agent++) {
+            latest.add(sample(agent, processes, connections));
+        }
+        long plainHeap = usedHeap() - baseline;
+
+        TelemetryStringInterner interner = new TelemetryStringInterner(100_000);
+        latest.forEach(interner::internStrings);
+        long internedHeap = usedHeap() - baseline;
+
+        System.out.printf("%,d agents, %d processes and %d connections each%n", agents, processes, connections);
+        System.out.printf("  heap      plain %,10d KiB  interned %,10d KiB  (%.1f%%, %,d distinct strings)%n",
+                plainHeap / 1024, internedHeap / 1024, 100.0 * internedHeap / plainHeap, interner.size());
+
+        TelemetryMapper telemetryMapper = new TelemetryMapper();
+        MetricReportDictionaryEncoding encoding = new MetricReportDictionaryEncoding(true);
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        long plainBytes = 0;
+        long encodedBytes = 0;
+        long plainDeflated = 0;
+        long encodedDeflated = 0;
+        for (TelemetryData data : latest) {
+            MetricReportDocument document = telemetryMapper.toDocument(data);
+            byte[] plain = bson(converter, document);
+            byte[] encoded = bson(converter, encoding.onBeforeConvert(document, "agent_reports"));
+            plainBytes += plain.length;
+            encodedBytes += encoded.length;
+            plainDeflated += deflatedLength(plain);
+            encodedDeflated += deflatedLength(encoded);
+        }
+        System.out.printf("  storage   plain %,10d B/report  dictionary %,10d B/report  (%.1f%%)%n",
+                plainBytes / agents, encodedBytes / agents, 100.0 * encodedBytes / plainBytes);
+        System.out.printf("  deflated  plain %,10d B/report  dictionary %,10d B/report  (%.1f%%)%n",
+                plainDeflated / agents, encodedDeflated / agents, 100.0 * encodedDeflated / plainDeflated);
+    }
+
+    private static byte[] bson(MappingMongoConverter converter, MetricReportDocument document) {
+        Document target = new Document();
+        converter.write(document, target);
+        RawBsonDocument raw = new RawBsonDocument(target, new DocumentCodec());
+        byte[] bytes = new byte[raw.getByteBuffer().remaining()];
+        raw.getByteBuffer().get(bytes);
+        return bytes;
+    }
+
+    private static int deflatedLength(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] buffer = new byte[input.length + 64];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return length;
+    }
+
+    // Every value is a fresh String, as a JSON or binary decode produces them
+    private static TelemetryData sample(int agent, int processCount, int connectionCount) {
+        Random random = new Random(agent);
+        String localAddress = "10." + (agent >> 16 & 255) + '.' + (agent >> 8 & 255) + '.' + (agent & 255);
+
+        List<TelemetryData.ProcessData> processes = new ArrayList<>(processCount);
+        for (int i = 0; i < processCount; i++) {
+            String name = i < COMMON_PROCESSES.length ? COMMON_PROCESSES[i] : "worker-" + random.nextInt(40);
+            processes.add(new TelemetryData.ProcessData(1000 + i, new String(name),
+                    random.nextDouble() * 10, new String(USERS[random.nextInt(USERS.length)])));
+        }
+        List<TelemetryData.NetworkConnectionData> connections = new ArrayList<>(connectionCount);
+        for (int i = 0; i < connectionCount; i++) {
+            TelemetryData.ProcessData owner = processes.get(random.nextInt(Math.min(processCount, 20)));
+            connections.add(new TelemetryData.NetworkConnectionData(owner.getPid(), new String(owner.getName()),
+                    new String(localAddress), 30000 + i, new String("203.0.113." + random.nextInt(200)), 443,
+                    new String(STATES[random.nextInt(STATES.length)])));
+        }
+        return TelemetryData.builder()
+                .agentId("agent-" + agent)
+                .hostname("host-" + agent)
+                .cpuUsage(random.nextDouble() * 100)
+                .processes(processes)
+                .networkConnections(connections)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
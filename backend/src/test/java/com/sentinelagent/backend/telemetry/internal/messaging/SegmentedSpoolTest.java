@@ -0,0 +1,112 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedSpoolTest {
+
+    private static final int SEGMENT_BYTES = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesComeBackInOrderAcrossSegments() throws IOException {
+        try (SegmentedSpool spool = new SegmentedSpool(directory, SEGMENT_BYTES, 10)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(spool.append(bytes("entry-" + i)));
+            }
+            assertEquals(10, spool.pendingEntries());
+            assertTrue(segmentFiles() > 1);
+
+            assertEquals(List.of("entry-0", "entry-1", "entry-2"), strings(spool.peek(3)));
+            // Peeking does not consume
+            assertEquals(List.of("entry-0"), strings(spool.peek(1)));
+
+            spool.advance(7);
+            assertEquals(List.of("entry-7", "entry-8", "entry-9"), strings(spool.peek(100)));
+            spool.advance(3);
+            assertTrue(spool.isEmpty());
+            assertEquals(0, spool.pendingBytes());
+            assertEquals(1, segmentFiles());
+        }
+    }
+
+    @Test
+    void reopening_resumesAfterTheLastConsumedEntry() {
+        try (SegmentedSpool spool = new SegmentedSpool(directory, SEGMENT_BYTES, 10)) {
+            for (int i = 0; i < 6; i++) {
+                spool.append(bytes("entry-" + i));
+            }
+            spool.advance(4);
+        }
+
+        try (SegmentedSpool spool = new SegmentedSpool(directory, SEGMENT_BYTES, 10)) {
+            assertEquals(2, spool.pendingEntries());
+            spool.append(bytes("entry-6"));
+            assertEquals(List.of("entry-4", "entry-5", "entry-6"), strings(spool.peek(10)));
+        }
+    }
+
+    @Test
+    void reopening_dropsAnEntryTornByACrash() throws IOException {
+        try (SegmentedSpool spool = new SegmentedSpool(directory, SEGMENT_BYTES, 10)) {
+            spool.append(bytes("entry-0"));
+            spool.append(bytes("entry-1"));
+        }
+        // Corrupt the payload of the second entry: 8 header bytes + 7 payload bytes per entry
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(15 + 8);
+            file.write('X');
+        }
+
+        try (SegmentedSpool spool = new SegmentedSpool(directory, SEGMENT_BYTES, 10)) {
+            assertEquals(List.of("entry-0"), strings(spool.peek(10)));
+            spool.append(bytes("entry-2"));
+            assertEquals(List.of("entry-0", "entry-2"), strings(spool.peek(10)));
+        }
+    }
+
+    @Test
+    void append_refusesEntriesBeyondTheSegmentCap() {
+        try (SegmentedSpool spool = new SegmentedSpool(directory, SEGMENT_BYTES, 2)) {
+            // Four 15-byte entries fit a 64-byte segment
+            for (int i = 0; i < 8; i++) {
+                assertTrue(spool.append(bytes("entry-" + i)));
+            }
+            assertFalse(spool.append(bytes("entry-8")));
+            assertFalse(spool.append(new byte[SEGMENT_BYTES]));
+
+            spool.advance(4);
+            assertTrue(spool.append(bytes("entry-8")));
+        }
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> entries) {
+        return entries.stream().map(entry -> new String(entry, StandardCharsets.UTF_8)).toList();
+    }
+}
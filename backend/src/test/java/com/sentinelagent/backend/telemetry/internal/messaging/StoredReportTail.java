@@ -0,0 +1,79 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.gte;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Projections.include;
+
+/**
+ * Follows {@code agent_reports} for the simulated fleet through the (agentId, receivedAt) index: counts the
+ * samples that got stored and records how long each took from produce to the backend stamping
+ * {@code receivedAt}. The produce time is read back from the idempotency key
+ * ({@code agentId|sentAt|sequence}), which carries the Kafka message timestamp, so the simulator and the
+ * backend must share a clock: run them on one host or keep both NTP-synced.
+ */
+final class StoredReportTail {
+
+    // Reports are stamped before they are written; look back far enough to catch slow writes
+    private static final Duration OVERLAP = Duration.ofSeconds(15);
+
+    private final MongoCollection<Document> reports;
+    private final List<String> agentIds;
+    private final AgentFleetSimulator.LatencyRecorder latency;
+    private final Map<String, Instant> seen = new HashMap<>();
+    private Instant from;
+    private long stored;
+
+    StoredReportTail(MongoCollection<Document> reports, List<String> agentIds,
+                     AgentFleetSimulator.LatencyRecorder latency, Instant start) {
+        this.reports = reports;
+        this.agentIds = agentIds;
+        this.latency = latency;
+        this.from = start;
+    }
+
+    synchronized void poll() {
+        Instant newest = from;
+        for (Document report : reports.find(and(in("agentId", agentIds), gte("receivedAt", Date.from(from))))
+                .projection(include("idempotencyKey", "receivedAt"))) {
+            String key = report.getString("idempotencyKey");
+            Instant receivedAt = report.getDate("receivedAt").toInstant();
+            if (key == null || seen.putIfAbsent(key, receivedAt) != null) {
+                continue;
+            }
+            stored++;
+            Instant sentAt = sentAt(key);
+            if (sentAt != null) {
+                latency.record(Math.max(0, Duration.between(sentAt, receivedAt).toNanos()));
+            }
+            if (receivedAt.isAfter(newest)) {
+                newest = receivedAt;
+            }
+        }
+        Instant lookBack = newest.minus(OVERLAP);
+        if (lookBack.isAfter(from)) {
+            from = lookBack;
+            seen.values().removeIf(receivedAt -> receivedAt.isBefore(from));
+        }
+    }
+
+    synchronized long stored() {
+        return stored;
+    }
+
+    private static Instant sentAt(String idempotencyKey) {
+        int first = idempotencyKey.indexOf('|');
+        int second = idempotencyKey.indexOf('|', first + 1);
+        return first < 0 || second < 0 ? null : Instant.parse(idempotencyKey.substring(first + 1, second));
+    }
+}
@@ -0,0 +1,217 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One simulated host for {@link AgentFleetSimulator}: host metrics that drift between samples, a process
+ * table where a few processes are busy and a few are replaced each sample, churning connections, and the Go
+ * agent's delta encoding against the last sample sent. Like the agent it sends a full snapshot every
+ * {@value #FULL_SNAPSHOT_EVERY} samples, after a failed send and when a {@code FULL_SNAPSHOT} command asks
+ * for one.
+ *
+ * <p>{@link #nextMessage} is called by one thread at a time; the other methods may come from any thread.
+ */
+final class SyntheticAgent {
+
+    static final int FULL_SNAPSHOT_EVERY = 30;
+
+    private static final String[] USERS = {"root", "www-data", "postgres", "sentinel", "systemd-network", "nobody"};
+    private static final String[] PROCESS_NAMES = {"nginx", "java", "postgres", "sshd", "containerd", "python3",
+            "node", "chrome", "systemd", "cron", "dockerd", "redis-server", "rsyslogd", "kworker"};
+    private static final String[] CONNECTION_STATES = {"ESTABLISHED", "ESTABLISHED", "ESTABLISHED", "LISTEN",
+            "TIME_WAIT", "CLOSE_WAIT"};
+    private static final double BUSY_PROCESS_SHARE = 0.15;
+    private static final double PROCESS_CHURN = 0.02;
+    private static final double CONNECTION_CHURN = 0.10;
+
+    final String agentId;
+    final String apiKey;
+    final String hostname;
+
+    private final Random random;
+    private final String localAddress;
+    private final TelemetryData.ProcessData[] processTable;
+    private final TelemetryData.NetworkConnectionData[] connectionTable;
+    private final AtomicBoolean fullSnapshotRequired = new AtomicBoolean();
+    private final long ramTotalMb;
+    private final long diskTotalGb;
+    private volatile double cpuUsage;
+    private volatile double ramUsedPercent;
+    private double diskUsedPercent;
+    private int nextPid = 1000;
+    private long sequence;
+    private long sentSequence;
+    private int samplesSinceFull;
+    private Map<Integer, TelemetryData.ProcessData> sentProcesses;
+    private Map<String, TelemetryData.NetworkConnectionData> sentConnections;
+
+    SyntheticAgent(String agentId, String apiKey, String hostname, int index, int processes, int connections) {
+        this.agentId = agentId;
+        this.apiKey = apiKey;
+        this.hostname = hostname;
+        this.random = new Random(index);
+        this.localAddress = "10." + (index >> 16 & 0xff) + '.' + (index >> 8 & 0xff) + '.' + (index & 0xff);
+        this.ramTotalMb = 4096L << random.nextInt(4);
+        this.diskTotalGb = 128L << random.nextInt(4);
+        this.cpuUsage = 5 + random.nextDouble() * 40;
+        this.ramUsedPercent = 30 + random.nextDouble() * 40;
+        this.diskUsedPercent = 20 + random.nextDouble() * 60;
+        this.processTable = new TelemetryData.ProcessData[processes];
+        for (int i = 0; i < processes; i++) {
+            processTable[i] = newProcess();
+        }
+        this.connectionTable = new TelemetryData.NetworkConnectionData[connections];
+        for (int i = 0; i < connections; i++) {
+            connectionTable[i] = newConnection();
+        }
+    }
+
+    /** Advances the host by one sample interval and encodes the result against the last sample sent. */
+    TelemetryKafkaMessage nextMessage(Instant now) {
+        drift();
+
+        TelemetryKafkaMessage message = new TelemetryKafkaMessage();
+        message.setAgentId(agentId);
+        message.setApiKey(apiKey);
+        message.setHostname(hostname);
+        message.setCpuUsage(round(cpuUsage));
+        message.setRamUsedPercent(round(ramUsedPercent));
+        message.setRamTotalMb(ramTotalMb);
+        message.setDiskUsedPercent(round(diskUsedPercent));
+        message.setDiskTotalGb(diskTotalGb);
+        message.setBytesSentSec(50_000 + random.nextInt(2_000_000));
+        message.setBytesRecvSec(80_000 + random.nextInt(4_000_000));
+        message.setSequence(++sequence);
+        message.setTimestamp(now);
+
+        Map<Integer, TelemetryData.ProcessData> processes = new HashMap<>(processTable.length * 2);
+        for (TelemetryData.ProcessData process : processTable) {
+            processes.put(process.getPid(), process);
+        }
+        Map<String, TelemetryData.NetworkConnectionData> connections = new HashMap<>(connectionTable.length * 2);
+        for (TelemetryData.NetworkConnectionData connection : connectionTable) {
+            connections.put(connectionKey(connection), connection);
+        }
+
+        boolean full = sentProcesses == null || samplesSinceFull >= FULL_SNAPSHOT_EVERY
+                || fullSnapshotRequired.getAndSet(false);
+        if (full) {
+            message.setProcesses(processTable.clone());
+            message.setNetworkConnections(connectionTable.clone());
+            samplesSinceFull = 0;
+        } else {
+            message.setBaseSequence(sentSequence);
+            List<TelemetryData.ProcessData> changedProcesses = new ArrayList<>();
+            for (TelemetryData.ProcessData process : processTable) {
+                if (!process.equals(sentProcesses.get(process.getPid()))) {
+                    changedProcesses.add(process);
+                }
+            }
+            message.setProcesses(changedProcesses.toArray(TelemetryData.ProcessData[]::new));
+            message.setRemovedProcessPids(sentProcesses.keySet().stream()
+                    .filter(pid -> !processes.containsKey(pid))
+                    .mapToInt(Integer::intValue)
+                    .toArray());
+
+            List<TelemetryData.NetworkConnectionData> changedConnections = new ArrayList<>();
+            for (Map.Entry<String, TelemetryData.NetworkConnectionData> entry : connections.entrySet()) {
+                if (!entry.getValue().equals(sentConnections.get(entry.getKey()))) {
+                    changedConnections.add(entry.getValue());
+                }
+            }
+            message.setNetworkConnections(changedConnections.toArray(TelemetryData.NetworkConnectionData[]::new));
+            message.setRemovedConnections(sentConnections.entrySet().stream()
+                    .filter(entry -> !connections.containsKey(entry.getKey()))
+                    .map(Map.Entry::getValue)
+                    .toArray(TelemetryData.NetworkConnectionData[]::new));
+            samplesSinceFull++;
+        }
+
+        // Marked sent before the broker acknowledges; a failed send asks for a full snapshot instead
+        sentSequence = sequence;
+        sentProcesses = processes;
+        sentConnections = connections;
+        return message;
+    }
+
+    void requireFullSnapshot() {
+        fullSnapshotRequired.set(true);
+    }
+
+    double cpuUsage() {
+        return round(cpuUsage);
+    }
+
+    double ramUsedPercent() {
+        return round(ramUsedPercent);
+    }
+
+    /** Answers a pending command the way the Go agent reports it, without touching the local machine. */
+    String[] execute(String command) {
+        return switch (command) {
+            case "FULL_SNAPSHOT" -> {
+                requireFullSnapshot();
+                yield new String[]{"SUCCESS", "Next sample will carry a full snapshot"};
+            }
+            case "TERMINATE_PROCESS", "BLOCK_IP" -> new String[]{"SUCCESS", "Simulated " + command};
+            default -> new String[]{"FAILED", "Unsupported command: " + command};
+        };
+    }
+
+    private void drift() {
+        cpuUsage = clamp(cpuUsage + random.nextGaussian() * 4, 1, 99);
+        ramUsedPercent = clamp(ramUsedPercent + random.nextGaussian(), 10, 95);
+        diskUsedPercent = clamp(diskUsedPercent + random.nextDouble() * 0.01, 0, 99);
+
+        for (int i = 0; i < processTable.length; i++) {
+            TelemetryData.ProcessData process = processTable[i];
+            if (random.nextDouble() < PROCESS_CHURN) {
+                processTable[i] = newProcess();
+            } else if (random.nextDouble() < BUSY_PROCESS_SHARE) {
+                processTable[i] = new TelemetryData.ProcessData(process.getPid(), process.getName(),
+                        round(random.nextDouble() * 25), process.getUsername());
+            }
+        }
+        for (int i = 0; i < connectionTable.length; i++) {
+            if (random.nextDouble() < CONNECTION_CHURN) {
+                connectionTable[i] = newConnection();
+            }
+        }
+    }
+
+    private TelemetryData.ProcessData newProcess() {
+        return new TelemetryData.ProcessData(nextPid++, PROCESS_NAMES[random.nextInt(PROCESS_NAMES.length)], 0.0,
+                USERS[random.nextInt(USERS.length)]);
+    }
+
+    private TelemetryData.NetworkConnectionData newConnection() {
+        TelemetryData.ProcessData owner = processTable.length > 0
+                ? processTable[random.nextInt(processTable.length)]
+                : new TelemetryData.ProcessData(0, "unknown", 0.0, "root");
+        return new TelemetryData.NetworkConnectionData(owner.getPid(), owner.getName(), localAddress,
+                32768 + random.nextInt(28232), "172.16." + random.nextInt(4) + '.' + random.nextInt(256),
+                random.nextBoolean() ? 443 : 5432 + random.nextInt(4),
+                CONNECTION_STATES[random.nextInt(CONNECTION_STATES.length)]);
+    }
+
+    private static String connectionKey(TelemetryData.NetworkConnectionData connection) {
+        return connection.getPid() + "|" + connection.getLocalAddress() + ':' + connection.getLocalPort()
+                + '|' + connection.getRemoteAddress() + ':' + connection.getRemotePort();
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
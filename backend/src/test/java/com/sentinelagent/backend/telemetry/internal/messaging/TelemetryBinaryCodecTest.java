@@ -0,0 +1,131 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryBinaryCodecTest {
+
+    @Test
+    void encodeDecode_roundTripsAllFields() {
+        TelemetryKafkaMessage message = sampleMessage();
+
+        TelemetryKafkaMessage decoded = TelemetryBinaryCodec.decode(TelemetryBinaryCodec.encode(message));
+
+        assertEquals(message, decoded);
+    }
+
+    @Test
+    void encodeDecode_keepsNullListsDistinctFromEmptyOnes() {
+        TelemetryKafkaMessage message = sampleMessage();
+        message.setProcesses(null);
+        message.setNetworkConnections(new TelemetryData.NetworkConnectionData[0]);
+        message.setApiKey(null);
+
+        TelemetryKafkaMessage decoded = TelemetryBinaryCodec.decode(TelemetryBinaryCodec.encode(message));
+
+        assertNull(decoded.getProcesses());
+        assertEquals(0, decoded.getNetworkConnections().length);
+        assertNull(decoded.getApiKey());
+    }
+
+    @Test
+    void encode_writesRepeatedStringsOnce() {
+        TelemetryKafkaMessage message = sampleMessage();
+        byte[] encoded = TelemetryBinaryCodec.encode(message);
+
+        String raw = new String(encoded, StandardCharsets.ISO_8859_1);
+        assertEquals(raw.indexOf("ESTABLISHED"), raw.lastIndexOf("ESTABLISHED"));
+    }
+
+    @Test
+    void encodeDecode_roundTripsDeltaFields() {
+        TelemetryKafkaMessage message = sampleMessage();
+        message.setSequence(42L);
+        message.setBaseSequence(41L);
+        message.setRemovedProcessPids(new int[]{7, 8});
+        message.setRemovedConnections(new TelemetryData.NetworkConnectionData[]{
+                new TelemetryData.NetworkConnectionData(7, "curl", "10.0.0.5", 51000, "93.184.216.34", 443, "ESTABLISHED")
+        });
+        message.setTimestamp(java.time.Instant.parse("2026-03-01T10:15:30.123456789Z"));
+
+        TelemetryKafkaMessage decoded = TelemetryBinaryCodec.decode(TelemetryBinaryCodec.encode(message));
+
+        assertEquals(message, decoded);
+    }
+
+    @Test
+    void decode_versionOneRecord_isStillAccepted() {
+        TelemetryKafkaMessage message = sampleMessage();
+        byte[] current = TelemetryBinaryCodec.encode(message);
+        // Version 1 is version 3 without the trailing delta section (two null longs and two null lists)
+        // and timestamp (one null long)
+        byte[] versionOne = java.util.Arrays.copyOf(current, current.length - 5);
+        versionOne[1] = TelemetryBinaryCodec.VERSION_1;
+
+        assertEquals(message, TelemetryBinaryCodec.decode(versionOne));
+    }
+
+    @Test
+    void decode_unknownVersion_isRejected() {
+        byte[] encoded = TelemetryBinaryCodec.encode(sampleMessage());
+        encoded[1] = 9;
+
+        assertThrows(SerializationException.class, () -> TelemetryBinaryCodec.decode(encoded));
+    }
+
+    @Test
+    void deserializer_picksFormatFromHeader() {
+        TelemetryMessageDeserializer deserializer = new TelemetryMessageDeserializer();
+        deserializer.configure(Map.of(
+                "spring.json.value.default.type", TelemetryKafkaMessage.class.getName(),
+                "spring.json.trusted.packages", "*"), false);
+
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        binaryHeaders.add(TelemetryBinaryCodec.FORMAT_HEADER, TelemetryBinaryCodec.BINARY_FORMAT.getBytes(StandardCharsets.UTF_8));
+        TelemetryKafkaMessage fromBinary = deserializer.deserialize("agent-data", binaryHeaders,
+                TelemetryBinaryCodec.encode(sampleMessage()));
+
+        byte[] json = "{\"agentId\":\"agent-1\",\"cpuUsage\":12.5,\"timestamp\":\"2026-03-01T11:15:30.123456789+01:00\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        TelemetryKafkaMessage fromJson = deserializer.deserialize("agent-data", new RecordHeaders(), json);
+        // A record re-serialized as JSON on the retry path keeps the binary header but must still decode
+        TelemetryKafkaMessage fromRetriedJson = deserializer.deserialize("agent-data", binaryHeaders, json);
+
+        assertEquals(sampleMessage(), fromBinary);
+        assertEquals(12.5, fromJson.getCpuUsage());
+        // Agents send their local offset; the instant is what identifies the sample
+        assertEquals(java.time.Instant.parse("2026-03-01T10:15:30.123456789Z"), fromJson.getTimestamp());
+        assertEquals("agent-1", fromRetriedJson.getAgentId());
+        deserializer.close();
+    }
+
+    private TelemetryKafkaMessage sampleMessage() {
+        TelemetryKafkaMessage message = new TelemetryKafkaMessage();
+        message.setAgentId("agent-1");
+        message.setApiKey("sk_live_key");
+        message.setHostname("web-01");
+        message.setCpuUsage(42.5);
+        message.setRamUsedPercent(63.25);
+        message.setRamTotalMb(16384);
+        message.setDiskUsedPercent(71.0);
+        message.setDiskTotalGb(512);
+        message.setBytesSentSec(1_048_576);
+        message.setBytesRecvSec(2_097_152);
+        message.setProcesses(new TelemetryData.ProcessData[]{
+                new TelemetryData.ProcessData(1, "systemd", 0.1, "root"),
+                new TelemetryData.ProcessData(4242, "java", 35.7, "sentinel")
+        });
+        message.setNetworkConnections(new TelemetryData.NetworkConnectionData[]{
+                new TelemetryData.NetworkConnectionData(4242, "java", "10.0.0.5", 51544, "10.0.0.9", 27017, "ESTABLISHED"),
+                new TelemetryData.NetworkConnectionData(4242, "java", "10.0.0.5", 51546, "10.0.0.9", 9092, "ESTABLISHED")
+        });
+        return message;
+    }
+}
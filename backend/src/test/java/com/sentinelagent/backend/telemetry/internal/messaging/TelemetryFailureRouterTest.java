@@ -0,0 +1,74 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.agent.api.InvalidAgentCredentialsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryFailureRouterTest {
+
+    @Mock
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    private TelemetryFailureRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new TelemetryFailureRouter(kafkaTemplate, new SimpleMeterRegistry(), 3, 1000, 2.0, 3000);
+    }
+
+    @Test
+    void destination_transientFailure_goesToRetryTopic() {
+        Exception cause = new ListenerExecutionFailedException("listener failed",
+                new DataAccessResourceFailureException("Timed out waiting for a server"));
+
+        assertEquals(TelemetryKafkaConfig.RETRY_TOPIC, router.destination(record(0), cause).topic());
+    }
+
+    @Test
+    void destination_permanentFailure_goesToDeadLetterTopic() {
+        Exception cause = new InvalidAgentCredentialsException("Unknown agent");
+
+        assertEquals(TelemetryKafkaConfig.DEAD_LETTER_TOPIC, router.destination(record(0), cause).topic());
+    }
+
+    @Test
+    void destination_outOfAttempts_goesToDeadLetterTopic() {
+        Exception cause = new DataAccessResourceFailureException("Timed out waiting for a server");
+
+        assertEquals(TelemetryKafkaConfig.DEAD_LETTER_TOPIC, router.destination(record(3), cause).topic());
+    }
+
+    @Test
+    void retryHeaders_incrementAttemptAndBackOffExponentially() {
+        long before = System.currentTimeMillis();
+        Headers headers = router.retryHeaders(record(1), new DataAccessResourceFailureException("down"));
+
+        assertEquals("2", new String(headers.lastHeader(TelemetryFailureRouter.ATTEMPT_HEADER).value(), StandardCharsets.UTF_8));
+        long notBefore = Long.parseLong(new String(headers.lastHeader(TelemetryFailureRouter.NOT_BEFORE_HEADER).value(), StandardCharsets.UTF_8));
+        assertTrue(notBefore >= before + 2000);
+        assertEquals(1000, router.delayFor(1));
+        assertEquals(3000, router.delayFor(3));
+    }
+
+    private ConsumerRecord<Object, Object> record(int attempt) {
+        ConsumerRecord<Object, Object> record = new ConsumerRecord<>(TelemetryKafkaConfig.TELEMETRY_TOPIC, 0, 42L, "agent-1", new TelemetryKafkaMessage());
+        if (attempt > 0) {
+            record.headers().add(TelemetryFailureRouter.ATTEMPT_HEADER, Integer.toString(attempt).getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+}
@@ -0,0 +1,178 @@
+package com.sentinelagent.backend.telemetry.internal.messaging;
+
+import com.sentinelagent.backend.agent.api.AgentCommandGateway;
+import com.sentinelagent.backend.agent.api.AgentValidationService;
+import com.sentinelagent.backend.agent.api.InvalidAgentCredentialsException;
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryMapper;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryStringInterner;
+import com.sentinelagent.backend.telemetry.internal.repository.MetricRollupRepository;
+import com.sentinelagent.backend.telemetry.internal.repository.SpringDataMetricReportRepository;
+import com.sentinelagent.backend.telemetry.internal.service.AgentSnapshotStore;
+import com.sentinelagent.backend.telemetry.internal.service.FleetLeaderboard;
+import com.sentinelagent.backend.telemetry.internal.service.LatestTelemetryCache;
+import com.sentinelagent.backend.telemetry.internal.service.RecentMetricsStore;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryBatchResult;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryDeduplicator;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryIngestMetrics;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryLiveBroadcaster;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryRollupAggregator;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryService;
+import com.sentinelagent.backend.telemetry.internal.service.TelemetryServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetrySpoolReplayerTest {
+
+    @Mock
+    private TelemetryService telemetryService;
+    @Mock
+    private TelemetryFailureRouter failureRouter;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TelemetrySpool spool;
+    private TelemetrySpoolReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        spool = new TelemetrySpool(new SegmentedSpool(directory, 1 << 16, 4), meterRegistry);
+        replayer = new TelemetrySpoolReplayer(spool, telemetryService, failureRouter, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        spool.close();
+    }
+
+    @Test
+    void divert_afterATransientFailure_spoolsEverythingUntilDrained() {
+        assertFalse(spool.divert(record("agent-1", 1)));
+        assertFalse(spool.divertFailed(record("agent-1", 1), new InvalidAgentCredentialsException("Unknown agent")));
+
+        assertTrue(spool.divertFailed(record("agent-1", 1), new DataAccessResourceFailureException("Timed out")));
+        assertTrue(spool.divert(record("agent-2", 2)));
+        assertEquals(2, spool.depth());
+        assertEquals(2.0, meterRegistry.get("telemetry.spool.depth").gauge().value());
+    }
+
+    @Test
+    void replay_storesSpooledRecordsInArrivalOrder() {
+        spool.divertFailed(record("agent-1", 1), new DataAccessResourceFailureException("Timed out"));
+        spool.divert(record("agent-2", 2));
+        spool.divert(record("agent-1", 3));
+        when(telemetryService.processAndSaveTelemetryBatch(anyList())).thenReturn(new TelemetryBatchResult(List.of(), List.of()));
+
+        replayer.replay();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TelemetryData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(telemetryService).processAndSaveTelemetryBatch(captor.capture());
+        assertEquals(List.of("agent-1", "agent-2", "agent-1"), captor.getValue().stream().map(TelemetryData::getAgentId).toList());
+        assertEquals(0, spool.depth());
+        assertEquals(3.0, meterRegistry.get("telemetry.spool.replayed").counter().count());
+        assertFalse(spool.divert(record("agent-1", 4)));
+    }
+
+    @Test
+    void replay_whileTheStoreIsStillDown_keepsTheChunk() {
+        spool.divertFailed(record("agent-1", 1), new DataAccessResourceFailureException("Timed out"));
+        when(telemetryService.processAndSaveTelemetryBatch(anyList())).thenReturn(new TelemetryBatchResult(List.of(),
+                List.of(new TelemetryBatchResult.Failure(0, new DataAccessResourceFailureException("Timed out")))));
+
+        replayer.replay();
+
+        assertEquals(1, spool.depth());
+        verifyNoInteractions(failureRouter);
+    }
+
+    @Test
+    void replay_permanentFailure_goesToTheDeadLetterTopic() {
+        spool.divertFailed(record("agent-1", 41), new DataAccessResourceFailureException("Timed out"));
+        spool.divert(record("agent-2", 42));
+        InvalidAgentCredentialsException cause = new InvalidAgentCredentialsException("Unknown agent");
+        when(telemetryService.processAndSaveTelemetryBatch(anyList())).thenReturn(new TelemetryBatchResult(List.of(),
+                List.of(new TelemetryBatchResult.Failure(1, cause))));
+
+        replayer.replay();
+
+        verify(failureRouter).route(argThat(record -> record.offset() == 42 && "agent-2".equals(record.key())), any());
+        assertEquals(0, spool.depth());
+    }
+
+    @Test
+    void replay_deltasSpooledAfterAFailedSave_expandAgainstTheLastStoredSnapshot() {
+        AgentValidationService validation = mock(AgentValidationService.class);
+        when(validation.validate(any(), any())).thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host", true));
+        SpringDataMetricReportRepository repository = mock(SpringDataMetricReportRepository.class);
+        when(repository.save(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataAccessResourceFailureException("Timed out"));
+        when(repository.insertUnordered(anyList())).thenReturn(List.of());
+        TelemetryService storingService = new TelemetryServiceImpl(validation, repository, new TelemetryMapper(),
+                mock(ApplicationEventPublisher.class), new AgentSnapshotStore(mock(AgentCommandGateway.class), 100, 30, 60),
+                mock(TelemetryRollupAggregator.class), mock(MetricRollupRepository.class), new LatestTelemetryCache(100, 30),
+                mock(TelemetryLiveBroadcaster.class), mock(FleetLeaderboard.class), mock(TelemetryDeduplicator.class),
+                new TelemetryStringInterner(1000), new RecentMetricsStore(60, 1 << 20, meterRegistry),
+                new TelemetryIngestMetrics(meterRegistry));
+        TelemetrySpoolReplayer storingReplayer = new TelemetrySpoolReplayer(spool, storingService, failureRouter, 10);
+
+        storingService.processAndSaveTelemetry(sample(1, null, new TelemetryData.ProcessData(10, "nginx", 1.0, "root")).value().toTelemetryData());
+        ConsumerRecord<String, TelemetryKafkaMessage> failed = sample(2, 1L, new TelemetryData.ProcessData(20, "java", 5.0, "root"));
+        DataAccessResourceFailureException cause = assertThrows(DataAccessResourceFailureException.class,
+                () -> storingService.processAndSaveTelemetry(failed.value().toTelemetryData()));
+        spool.divertFailed(failed, cause);
+        spool.divert(sample(3, 2L, new TelemetryData.ProcessData(30, "sshd", 0.2, "root")));
+
+        storingReplayer.replay();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<MetricReportDocument>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).insertUnordered(captor.capture());
+        assertEquals(List.of(List.of(10, 20), List.of(10, 20, 30)), captor.getValue().stream()
+                .map(document -> document.getProcesses().stream().map(MetricReportDocument.ProcessDocument::getPid).toList())
+                .toList());
+        assertEquals(0, spool.depth());
+    }
+
+    private static ConsumerRecord<String, TelemetryKafkaMessage> sample(long sequence, Long baseSequence,
+                                                                        TelemetryData.ProcessData... processes) {
+        ConsumerRecord<String, TelemetryKafkaMessage> record = record("agent-1", sequence);
+        record.value().setSequence(sequence);
+        record.value().setBaseSequence(baseSequence);
+        record.value().setProcesses(processes);
+        return record;
+    }
+
+    private static ConsumerRecord<String, TelemetryKafkaMessage> record(String agentId, long offset) {
+        TelemetryKafkaMessage message = new TelemetryKafkaMessage();
+        message.setAgentId(agentId);
+        message.setApiKey("key");
+        message.setHostname("host");
+        message.setCpuUsage(12.5);
+        return new ConsumerRecord<>(TelemetryKafkaConfig.TELEMETRY_TOPIC, 0, offset, agentId, message);
+    }
+}
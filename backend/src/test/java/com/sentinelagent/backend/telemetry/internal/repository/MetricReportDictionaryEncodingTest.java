@@ -0,0 +1,85 @@
+package com.sentinelagent.backend.telemetry.internal.repository;
+
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricReportDictionaryEncodingTest {
+
+    private final MetricReportDictionaryEncoding encoding = new MetricReportDictionaryEncoding(true);
+
+    @Test
+    void encode_writesEachDistinctStringOnceAndLeavesTheOriginalAlone() {
+        MetricReportDocument original = sample();
+
+        MetricReportDocument encoded = encoding.onBeforeConvert(original, "agent_reports");
+
+        assertEquals(List.of("nginx", "www-data", "java", "10.0.0.5", "93.184.216.34", "ESTABLISHED"), encoded.getStrings());
+        assertNull(encoded.getProcesses().get(0).getName());
+        assertEquals(0, encoded.getNetworkConnections().get(0).getProcessNameRef());
+        assertEquals(sample(), original);
+
+        Document stored = new Document();
+        converter().write(encoded, stored);
+        Document process = stored.getList("processes", Document.class).get(1);
+        assertEquals(2, process.get("n"));
+        assertEquals(1, process.get("u"));
+        assertFalse(process.containsKey("name"));
+    }
+
+    @Test
+    void decode_restoresThePlainDocumentAfterReadAndSave() {
+        MetricReportDocument encoded = encoding.onBeforeConvert(sample(), "agent_reports");
+
+        assertEquals(sample(), encoding.onAfterConvert(encoded, new Document(), "agent_reports"));
+        // Plain documents, written before the layout was enabled, pass through
+        assertEquals(sample(), encoding.onAfterSave(sample(), new Document(), "agent_reports"));
+    }
+
+    @Test
+    void disabled_writesThePlainLayout() {
+        MetricReportDocument document = sample();
+
+        assertSame(document, new MetricReportDictionaryEncoding(false).onBeforeConvert(document, "agent_reports"));
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private static MetricReportDocument sample() {
+        return MetricReportDocument.builder()
+                .id("r1")
+                .agentId("agent-1")
+                .hostname("host-1")
+                .cpuUsage(12.5)
+                .receivedAt(LocalDateTime.of(2026, 10, 18, 12, 0))
+                .processes(List.of(
+                        MetricReportDocument.ProcessDocument.builder().pid(10).name("nginx").cpuUsage(1.5).username("www-data").build(),
+                        MetricReportDocument.ProcessDocument.builder().pid(20).name("java").cpuUsage(7.0).username("www-data").build()))
+                .networkConnections(List.of(
+                        MetricReportDocument.NetworkConnectionDocument.builder().pid(10).processName("nginx")
+                                .localAddress("10.0.0.5").localPort(443).remoteAddress("93.184.216.34").remotePort(51000)
+                                .status("ESTABLISHED").build(),
+                        MetricReportDocument.NetworkConnectionDocument.builder().pid(20).processName("java")
+                                .localAddress("10.0.0.5").localPort(8080).remoteAddress("93.184.216.34").remotePort(51001)
+                                .status("ESTABLISHED").build()))
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.agent.api.AgentCommandGateway;
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgentSnapshotStoreTest {
+
+    @Mock
+    private AgentCommandGateway commandGateway;
+
+    private AgentSnapshotStore snapshotStore;
+
+    @BeforeEach
+    void setUp() {
+        snapshotStore = new AgentSnapshotStore(commandGateway, 100, 30, 60);
+    }
+
+    @Test
+    void resolve_deltaOnTopOfFullSnapshot_expandsToCompleteLists() {
+        TelemetryData full = sample(1L, null);
+        full.setProcesses(List.of(process(10, "nginx", 1.0), process(20, "java", 5.0)));
+        full.setNetworkConnections(List.of(connection(20, 5432), connection(20, 9092)));
+        snapshotStore.commit(snapshotStore.resolve(full));
+
+        TelemetryData delta = sample(2L, 1L);
+        delta.setProcesses(List.of(process(20, "java", 7.5), process(30, "sshd", 0.2)));
+        delta.setRemovedProcessPids(List.of(10));
+        delta.setNetworkConnections(List.of());
+        delta.setRemovedConnections(List.of(connection(20, 5432)));
+
+        assertTrue(snapshotStore.resolve(delta).isComplete());
+        assertEquals(List.of(process(20, "java", 7.5), process(30, "sshd", 0.2)), delta.getProcesses());
+        assertEquals(List.of(connection(20, 9092)), delta.getNetworkConnections());
+        verifyNoInteractions(commandGateway);
+    }
+
+    @Test
+    void resolve_deltaWithoutMatchingBase_clearsListsAndRequestsFullSnapshotOnce() {
+        TelemetryData full = sample(1L, null);
+        full.setProcesses(List.of(process(10, "nginx", 1.0)));
+        snapshotStore.commit(snapshotStore.resolve(full));
+
+        TelemetryData gap = sample(5L, 4L);
+        gap.setProcesses(List.of(process(11, "curl", 0.5)));
+        TelemetryData nextGap = sample(6L, 5L);
+
+        assertFalse(snapshotStore.resolve(gap).isComplete());
+        assertFalse(snapshotStore.resolve(nextGap).isComplete());
+        assertNull(gap.getProcesses());
+        verify(commandGateway, times(1)).requestFullSnapshot("agent-1");
+    }
+
+    @Test
+    void resolve_redeliveredOldDelta_doesNotRequestResync() {
+        snapshotStore.commit(snapshotStore.resolve(sample(1L, null)));
+        snapshotStore.commit(snapshotStore.resolve(sample(2L, 1L)));
+        snapshotStore.commit(snapshotStore.resolve(sample(3L, 2L)));
+
+        assertFalse(snapshotStore.resolve(sample(2L, 1L)).isComplete());
+        verifyNoInteractions(commandGateway);
+    }
+
+    @Test
+    void resolve_deltaThatWasNeverCommitted_resolvesAgainOnRetry() {
+        TelemetryData full = sample(1L, null);
+        full.setProcesses(List.of(process(10, "nginx", 1.0)));
+        snapshotStore.commit(snapshotStore.resolve(full));
+
+        // First attempt: resolved, but its write failed so it is not committed
+        assertTrue(snapshotStore.resolve(delta(2L, 1L, process(20, "java", 5.0))).isComplete());
+
+        TelemetryData retried = delta(2L, 1L, process(20, "java", 5.0));
+        AgentSnapshotStore.Resolution resolution = snapshotStore.resolve(retried);
+        assertTrue(resolution.isComplete());
+        assertEquals(List.of(process(10, "nginx", 1.0), process(20, "java", 5.0)), retried.getProcesses());
+
+        snapshotStore.commit(resolution);
+        assertTrue(snapshotStore.resolve(delta(3L, 2L, process(30, "sshd", 0.2))).isComplete());
+        verifyNoInteractions(commandGateway);
+    }
+
+    @Test
+    void resolve_withPendingBatch_chainsDeltasOnUncommittedSamples() {
+        Map<String, AgentSnapshotStore.Resolution> pending = new HashMap<>();
+        TelemetryData full = sample(1L, null);
+        full.setProcesses(List.of(process(10, "nginx", 1.0)));
+        AgentSnapshotStore.Resolution first = snapshotStore.resolve(full, pending);
+        TelemetryData delta = delta(2L, 1L, process(20, "java", 5.0));
+        AgentSnapshotStore.Resolution second = snapshotStore.resolve(delta, pending);
+
+        assertTrue(second.isComplete());
+        assertEquals(List.of(process(10, "nginx", 1.0), process(20, "java", 5.0)), delta.getProcesses());
+
+        snapshotStore.commit(first);
+        snapshotStore.commit(second);
+        assertTrue(snapshotStore.resolve(delta(3L, 2L, process(30, "sshd", 0.2))).isComplete());
+    }
+
+    @Test
+    void commit_staleDelta_doesNotReplaceNewerSnapshot() {
+        snapshotStore.commit(snapshotStore.resolve(sample(1L, null)));
+        AgentSnapshotStore.Resolution stale = snapshotStore.resolve(sample(2L, 1L));
+        snapshotStore.commit(snapshotStore.resolve(sample(2L, 1L)));
+        snapshotStore.commit(snapshotStore.resolve(sample(3L, 2L)));
+
+        snapshotStore.commit(stale);
+
+        assertTrue(snapshotStore.resolve(sample(4L, 3L)).isComplete());
+    }
+
+    private TelemetryData delta(Long sequence, Long baseSequence, TelemetryData.ProcessData... changed) {
+        TelemetryData delta = sample(sequence, baseSequence);
+        delta.setProcesses(List.of(changed));
+        return delta;
+    }
+
+    private TelemetryData sample(Long sequence, Long baseSequence) {
+        return TelemetryData.builder()
+                .agentId("agent-1")
+                .sequence(sequence)
+                .baseSequence(baseSequence)
+                .build();
+    }
+
+    private TelemetryData.ProcessData process(int pid, String name, double cpu) {
+        return new TelemetryData.ProcessData(pid, name, cpu, "root");
+    }
+
+    private TelemetryData.NetworkConnectionData connection(int pid, int remotePort) {
+        return new TelemetryData.NetworkConnectionData(pid, "java", "10.0.0.5", 40000, "10.0.0.9", remotePort, "ESTABLISHED");
+    }
+}
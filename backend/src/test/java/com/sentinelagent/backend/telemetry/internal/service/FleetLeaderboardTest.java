@@ -0,0 +1,68 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.FleetTopResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetLeaderboardTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private FleetLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new FleetLeaderboard(60, now::get);
+    }
+
+    @Test
+    void top_newSampleMovesAgentToItsCurrentRank() {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 1, 12, 0);
+        leaderboard.update(report("a", 10, 500, t));
+        leaderboard.update(report("b", 50, 100, t));
+        leaderboard.update(report("c", 30, 900, t));
+        leaderboard.update(report("a", 80, 500, t.plusSeconds(10)));
+
+        assertEquals(List.of("a", "b"), agentIds(leaderboard.top(FleetLeaderboard.Metric.CPU, 2)));
+        assertEquals(List.of("c", "a", "b"), agentIds(leaderboard.top(FleetLeaderboard.Metric.UPLOAD, 5)));
+        assertEquals(80, leaderboard.top(FleetLeaderboard.Metric.CPU, 1).entries().get(0).value());
+    }
+
+    @Test
+    void update_olderSampleDoesNotReplaceNewerRanking() {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 1, 12, 0);
+        leaderboard.update(report("a", 80, 0, t));
+        leaderboard.update(report("a", 5, 0, t.minusSeconds(10)));
+
+        assertEquals(80, leaderboard.top(FleetLeaderboard.Metric.CPU, 1).entries().get(0).value());
+    }
+
+    @Test
+    void idleAgents_areHiddenAndThenEvicted() {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 1, 12, 0);
+        leaderboard.update(report("idle", 90, 0, t));
+        now.addAndGet(45_000);
+        leaderboard.update(report("active", 10, 0, t));
+        now.addAndGet(30_000);
+
+        assertEquals(List.of("active"), agentIds(leaderboard.top(FleetLeaderboard.Metric.CPU, 10)));
+
+        leaderboard.evictIdle();
+        assertEquals(1, leaderboard.trackedAgents());
+    }
+
+    private static List<String> agentIds(FleetTopResponse response) {
+        return response.entries().stream().map(FleetTopResponse.Entry::agentId).toList();
+    }
+
+    private static TelemetryResponse report(String agentId, double cpu, long sent, LocalDateTime receivedAt) {
+        return new TelemetryResponse(agentId, "host-" + agentId, cpu, 20, 8192, 30, 256, sent, 200,
+                List.of(), List.of(), receivedAt);
+    }
+}
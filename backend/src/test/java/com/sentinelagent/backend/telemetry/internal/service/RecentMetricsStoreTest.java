@@ -0,0 +1,101 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryWindowStats;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricWindowSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMetricsStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void windowStats_averagesSlopeAndPercentileOfTheWindowOnly() {
+        RecentMetricsStore store = new RecentMetricsStore(100, 1 << 20, meterRegistry);
+        // CPU climbs 2 points a minute, one sample every 30 s
+        for (int i = 0; i < 40; i++) {
+            store.record(sample("agent-1", T0.plusSeconds(30L * i), 10 + i, 1_000 * i));
+        }
+
+        TelemetryWindowStats stats = store.windowStats("agent-1", T0.plusMinutes(10), T0.plusMinutes(15)).orElseThrow();
+
+        assertEquals(11, stats.sampleCount());
+        assertEquals(T0.plusMinutes(10), stats.firstSampleAt());
+        assertEquals(T0.plusMinutes(15), stats.lastSampleAt());
+        assertEquals(35, stats.cpuUsage().avg(), 1e-9);
+        assertEquals(30, stats.cpuUsage().min());
+        assertEquals(40, stats.cpuUsage().max());
+        assertEquals(40, stats.cpuUsage().p95());
+        assertEquals(2, stats.cpuUsage().slopePerMinute(), 1e-9);
+        assertEquals(2_000, stats.bytesSentSec().slopePerMinute(), 1e-6);
+        assertTrue(store.windowStats("agent-1", T0.minusHours(2), T0.minusHours(1)).isEmpty());
+        assertTrue(store.windowStats("agent-2", T0, T0.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    void summarize_onlyAnswersWindowsTheRingStillHolds() {
+        RecentMetricsStore store = new RecentMetricsStore(10, 1 << 20, meterRegistry);
+        for (int i = 0; i < 15; i++) {
+            store.record(sample("agent-1", T0.plusMinutes(i), i, 0));
+        }
+
+        // Minutes 0-4 were overwritten, and nothing before minute 0 was ever seen here
+        assertTrue(store.summarize("agent-1", T0.plusMinutes(4), T0.plusMinutes(20)).isEmpty());
+        assertTrue(store.summarize("agent-1", T0.minusMinutes(1), T0.plusMinutes(20)).isEmpty());
+        MetricWindowSummary summary = store.summarize("agent-1", T0.plusMinutes(5), T0.plusMinutes(20)).orElseThrow();
+        assertEquals(10, summary.sampleCount());
+        assertEquals(9.5, summary.avgCpuUsage(), 1e-9);
+        assertEquals(5, summary.firstCpuUsage());
+        assertEquals(14, summary.lastCpuUsage());
+        // Covered but empty, so the database need not be asked either
+        assertEquals(0, store.summarize("agent-1", T0.plusMinutes(30), T0.plusMinutes(40)).orElseThrow().sampleCount());
+    }
+
+    @Test
+    void record_beyondTheMemoryCapDropsTheLeastRecentlyReportingAgent() {
+        long maxBytes = 3L * 10 * RecentMetricsStore.BYTES_PER_SLOT;
+        RecentMetricsStore store = new RecentMetricsStore(10, maxBytes, meterRegistry);
+        assertEquals(3, store.maxAgents());
+
+        store.record(sample("a", T0, 1, 0));
+        store.record(sample("b", T0, 1, 0));
+        store.record(sample("c", T0, 1, 0));
+        store.record(sample("a", T0.plusSeconds(10), 1, 0));
+        store.record(sample("d", T0.plusSeconds(10), 1, 0));
+
+        assertEquals(3, store.trackedAgents());
+        assertTrue(store.windowStats("b", T0, T0.plusMinutes(1)).isEmpty());
+        assertEquals(2, store.windowStats("a", T0, T0.plusMinutes(1)).orElseThrow().sampleCount());
+        assertEquals(1.0, meterRegistry.get("telemetry.recent.evictions").counter().count());
+    }
+
+    @Test
+    void select_findsTheKthSmallestInPlace() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int count = 1 + random.nextInt(200);
+            double[] values = DoubleStream.generate(() -> random.nextInt(50)).limit(count).toArray();
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int k = random.nextInt(count);
+
+            assertEquals(sorted[k], RecentMetricsStore.select(values, count, k));
+        }
+    }
+
+    private static TelemetryResponse sample(String agentId, LocalDateTime receivedAt, double cpu, long bytesSent) {
+        return new TelemetryResponse(agentId, "host-" + agentId, cpu, 50, 8_192, 40, 256, bytesSent, 0,
+                List.of(), List.of(), receivedAt);
+    }
+}
@@ -0,0 +1,106 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.internal.repository.SpringDataMetricReportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryDeduplicatorTest {
+
+    @Mock
+    private SpringDataMetricReportRepository metricReportRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TelemetryDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        deduplicator = new TelemetryDeduplicator(metricReportRepository, meterRegistry, 10_000, 0.01);
+    }
+
+    @Test
+    void isDuplicate_newKey_isAnsweredWithoutTheDatabase() {
+        assertFalse(deduplicator.isDuplicate("agent-1|2026-10-18T12:00:00Z|1"));
+        assertFalse(deduplicator.isDuplicate("agent-1|2026-10-18T12:00:10Z|2"));
+        assertFalse(deduplicator.isDuplicate(null));
+
+        verifyNoInteractions(metricReportRepository);
+    }
+
+    @Test
+    void isDuplicate_repeatedKey_isConfirmedAgainstTheIndex() {
+        String key = "agent-1|2026-10-18T12:00:00Z|1";
+        when(metricReportRepository.existsByIdempotencyKey(key)).thenReturn(true, false);
+        deduplicator.recordStored(key);
+
+        assertTrue(deduplicator.isDuplicate(key));
+        // A filter hit the index does not confirm is a new sample after all
+        assertFalse(deduplicator.isDuplicate(key));
+        assertEquals(1.0, meterRegistry.get("telemetry.ingest.duplicates").tag("caught-by", "filter").counter().count());
+        assertEquals(1.0, meterRegistry.get("telemetry.ingest.dedup.false-positives").counter().count());
+    }
+
+    @Test
+    void isDuplicate_sampleRetriedAfterAFailedWrite_isNotAFalsePositive() {
+        String key = "agent-1|2026-10-18T12:00:00Z|1";
+
+        assertFalse(deduplicator.isDuplicate(key));
+        // The write failed, so the key was never recorded; the retry is answered by the filter alone
+        assertFalse(deduplicator.isDuplicate(key));
+
+        verifyNoInteractions(metricReportRepository);
+        assertEquals(0.0, meterRegistry.get("telemetry.ingest.dedup.false-positives").counter().count());
+    }
+
+    @Test
+    void rotate_forgetsKeysAfterTwoWindows() {
+        String key = "agent-1|2026-10-18T12:00:00Z|1";
+        when(metricReportRepository.existsByIdempotencyKey(key)).thenReturn(true);
+        deduplicator.recordStored(key);
+
+        deduplicator.rotate();
+        assertTrue(deduplicator.isDuplicate(key));
+        deduplicator.rotate();
+        deduplicator.rotate();
+        assertFalse(deduplicator.isDuplicate(key));
+    }
+
+    @Test
+    void filter_staysNearItsFalsePositiveRate() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 9_000; i++) {
+            filter.put("agent-" + (i % 100) + '|' + i);
+        }
+        // Probes are recorded too, so the last of them see the filter at its design size
+        int falsePositives = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (filter.put("other-" + (i % 100) + '|' + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 25, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void keyOf_prefersTheAgentTimestampAndNeedsOne() {
+        TelemetryData data = TelemetryData.builder().agentId("agent-1").sequence(5L).build();
+        assertNull(TelemetryDeduplicator.keyOf(data));
+
+        data.setTimestamp(LocalDateTime.of(2026, 10, 18, 12, 0));
+        assertEquals("agent-1|2026-10-18T12:00|5", TelemetryDeduplicator.keyOf(data));
+
+        data.setSentAt(Instant.parse("2026-10-18T10:00:00.5Z"));
+        assertEquals("agent-1|2026-10-18T10:00:00.500Z|5", TelemetryDeduplicator.keyOf(data));
+    }
+}
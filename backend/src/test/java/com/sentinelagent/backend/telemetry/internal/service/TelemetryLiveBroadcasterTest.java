@@ -0,0 +1,110 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryLiveBroadcasterTest {
+
+    private final ManualExecutor drainExecutor = new ManualExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TelemetryLiveBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new TelemetryLiveBroadcaster(new ObjectMapper().registerModule(new JavaTimeModule()),
+                new TelemetryMapper(), meterRegistry, 2, 3, 30, drainExecutor);
+    }
+
+    @Test
+    void publish_reachesAgentAndFleetSubscribersOnly() {
+        broadcaster.subscribe("agent-1", false).orElseThrow();
+        broadcaster.subscribe("agent-2", false).orElseThrow();
+        broadcaster.subscribe(null, true).orElseThrow();
+
+        broadcaster.publish(report("agent-1"));
+
+        assertEquals(2, drainExecutor.tasks.size());
+        assertEquals(3.0, meterRegistry.get("telemetry.live.subscribers").gauge().value());
+    }
+
+    @Test
+    void publish_toSlowSubscriber_dropsOldestBeyondBuffer() {
+        broadcaster.subscribe("agent-1", true).orElseThrow();
+
+        broadcaster.publish(report("agent-1"));
+        broadcaster.publish(report("agent-1"));
+        broadcaster.publish(report("agent-1"));
+
+        assertEquals(1, drainExecutor.tasks.size(), "one drain per subscriber at a time");
+        assertEquals(1.0, meterRegistry.get("telemetry.live.dropped").counter().count());
+        drainExecutor.runAll();
+        assertTrue(drainExecutor.tasks.isEmpty());
+    }
+
+    @Test
+    void subscribe_beyondLimit_isRefused() {
+        broadcaster.subscribe("agent-1", false).orElseThrow();
+        broadcaster.subscribe("agent-1", false).orElseThrow();
+        broadcaster.subscribe(null, false).orElseThrow();
+
+        assertTrue(broadcaster.subscribe("agent-2", false).isEmpty());
+        assertEquals(3, broadcaster.subscriberCount());
+    }
+
+    private TelemetryResponse report(String agentId) {
+        return new TelemetryResponse(agentId, "host", 10, 20, 8192, 30, 256, 100, 200,
+                List.of(), List.of(), LocalDateTime.now());
+    }
+
+    private static final class ManualExecutor extends AbstractExecutorService {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
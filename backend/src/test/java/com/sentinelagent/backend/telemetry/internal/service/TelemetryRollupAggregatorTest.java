@@ -0,0 +1,113 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
+import com.sentinelagent.backend.telemetry.internal.repository.MetricRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryRollupAggregatorTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 10, 18, 9, 0);
+
+    @Mock
+    private MetricRollupRepository rollupRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TelemetryRollupAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new TelemetryRollupAggregator(rollupRepository, meterRegistry, 3);
+    }
+
+    @Test
+    void flush_foldsSamplesIntoMinuteAndHourBuckets() {
+        aggregator.record(report(BASE.plusSeconds(10), 30));
+        aggregator.record(report(BASE.plusSeconds(50), 10));
+        aggregator.record(report(BASE.plusSeconds(20), 50));
+        aggregator.record(report(BASE.plusMinutes(1).plusSeconds(5), 40));
+
+        aggregator.flush();
+
+        List<MetricRollupDocument> minutes = flushed(RollupResolution.MINUTE);
+        assertEquals(2, minutes.size());
+        MetricRollupDocument first = minutes.get(0);
+        assertEquals(BASE, first.getBucketStart());
+        assertEquals(3, first.getSampleCount());
+        assertEquals(BASE.plusSeconds(50), first.getLastSampleAt());
+        assertEquals(new MetricRollupDocument.MetricStats(10, 50, 90, 10), first.getCpuUsage());
+
+        List<MetricRollupDocument> hours = flushed(RollupResolution.HOUR);
+        assertEquals(1, hours.size());
+        assertEquals(4, hours.get(0).getSampleCount());
+        assertEquals(new MetricRollupDocument.MetricStats(10, 50, 130, 40), hours.get(0).getCpuUsage());
+        assertEquals(0, aggregator.pendingCount());
+    }
+
+    @Test
+    void flush_whenStoreFails_keepsBucketsAndMergesLaterSamples() {
+        doThrow(new DataAccessResourceFailureException("down")).doNothing()
+                .when(rollupRepository).upsertAll(eq(RollupResolution.MINUTE), any());
+        aggregator.record(report(BASE.plusSeconds(10), 30));
+        aggregator.flush();
+
+        aggregator.record(report(BASE.plusSeconds(20), 70));
+        clearInvocations(rollupRepository);
+        aggregator.flush();
+
+        MetricRollupDocument minute = flushed(RollupResolution.MINUTE).get(0);
+        assertEquals(2, minute.getSampleCount());
+        assertEquals(new MetricRollupDocument.MetricStats(30, 70, 100, 70), minute.getCpuUsage());
+        assertEquals(0, aggregator.pendingCount());
+    }
+
+    @Test
+    void flush_whenStoreKeepsFailing_retainsOnlyUpToTheLimitAndCountsTheRest() {
+        doThrow(new DataAccessResourceFailureException("down")).when(rollupRepository).upsertAll(any(), any());
+        aggregator.record(report(BASE.plusSeconds(10), 30));
+        aggregator.flush();
+        assertEquals(2, aggregator.pendingCount());
+
+        // Four buckets fail this time: the three minutes fit and the hour bucket, flushed last, is dropped
+        aggregator.record(report(BASE.plusMinutes(1), 40));
+        aggregator.record(report(BASE.plusMinutes(2), 50));
+        aggregator.flush();
+
+        assertEquals(3, aggregator.pendingCount());
+        assertEquals(1.0, meterRegistry.get("telemetry.rollups.dropped").counter().count());
+        assertEquals(3.0, meterRegistry.get("telemetry.rollups.pending").gauge().value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MetricRollupDocument> flushed(RollupResolution resolution) {
+        ArgumentCaptor<Collection<MetricRollupDocument>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(rollupRepository).upsertAll(eq(resolution), captor.capture());
+        List<MetricRollupDocument> increments = new ArrayList<>(captor.getValue());
+        increments.sort(Comparator.comparing(MetricRollupDocument::getBucketStart));
+        return increments;
+    }
+
+    private TelemetryResponse report(LocalDateTime receivedAt, double cpu) {
+        return new TelemetryResponse("agent-1", "host-1", cpu, 0, 0, 0, 0, 0, 0, List.of(), List.of(), receivedAt);
+    }
+}
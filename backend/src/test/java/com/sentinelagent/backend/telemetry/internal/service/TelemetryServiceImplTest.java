@@ -0,0 +1,398 @@
+package com.sentinelagent.backend.telemetry.internal.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.sentinelagent.backend.agent.api.AgentCommandGateway;
+import com.sentinelagent.backend.agent.api.AgentValidationService;
+import com.sentinelagent.backend.agent.api.InvalidAgentCredentialsException;
+import com.sentinelagent.backend.telemetry.dto.TelemetryAiSummaryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryData;
+import com.sentinelagent.backend.telemetry.dto.TelemetryMetricsResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetryResponse;
+import com.sentinelagent.backend.telemetry.dto.TelemetrySeriesResponse;
+import com.sentinelagent.backend.telemetry.event.TelemetryReceivedEvent;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricReportDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricRollupDocument;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricSample;
+import com.sentinelagent.backend.telemetry.internal.domain.MetricWindowSummary;
+import com.sentinelagent.backend.telemetry.internal.domain.RollupResolution;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryMapper;
+import com.sentinelagent.backend.telemetry.internal.mapper.TelemetryStringInterner;
+import com.sentinelagent.backend.telemetry.internal.repository.MetricRollupRepository;
+import com.sentinelagent.backend.telemetry.internal.repository.SpringDataMetricReportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryServiceImplTest {
+
+    @Mock
+    private AgentValidationService agentValidationService;
+    @Mock
+    private SpringDataMetricReportRepository metricReportRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TelemetryRollupAggregator rollupAggregator;
+    @Mock
+    private MetricRollupRepository rollupRepository;
+    @Mock
+    private TelemetryLiveBroadcaster liveBroadcaster;
+    @Mock
+    private FleetLeaderboard fleetLeaderboard;
+    @Mock
+    private TelemetryDeduplicator deduplicator;
+    @Spy
+    private TelemetryMapper telemetryMapper;
+    @Spy
+    private TelemetryStringInterner stringInterner = new TelemetryStringInterner(1000);
+    @Spy
+    private RecentMetricsStore recentMetrics = new RecentMetricsStore(60, 1 << 20, new SimpleMeterRegistry());
+    @Spy
+    private LatestTelemetryCache latestCache = new LatestTelemetryCache(100, 30);
+    @Spy
+    private AgentSnapshotStore snapshotStore = new AgentSnapshotStore(mock(AgentCommandGateway.class), 100, 30, 60);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private TelemetryIngestMetrics ingestMetrics = new TelemetryIngestMetrics(meterRegistry);
+
+    @InjectMocks
+    private TelemetryServiceImpl telemetryService;
+
+    @Test
+    void processAndSaveTelemetryBatch_skipsRejectedAgentsAndStoresTheRest() {
+        when(agentValidationService.validate("agent-1", "key-1"))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        when(agentValidationService.validate("agent-2", "bad-key")).thenThrow(new InvalidAgentCredentialsException());
+        when(metricReportRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<MetricReportDocument> documents = invocation.getArgument(0);
+            documents.forEach(doc -> doc.setId("id-" + doc.getCpuUsage()));
+            return List.of();
+        });
+
+        TelemetryBatchResult result = telemetryService.processAndSaveTelemetryBatch(List.of(
+                telemetry("agent-1", "key-1", 10),
+                telemetry("agent-2", "bad-key", 20),
+                telemetry("agent-1", "key-1", 30)));
+
+        assertEquals(2, result.saved().size());
+        assertEquals(1, result.failures().size());
+        assertEquals(1, result.failures().get(0).index());
+        assertInstanceOf(InvalidAgentCredentialsException.class, result.failures().get(0).cause());
+        verify(agentValidationService, times(1)).validate("agent-1", "key-1");
+
+        ArgumentCaptor<TelemetryReceivedEvent> captor = ArgumentCaptor.forClass(TelemetryReceivedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertEquals(List.of("id-10.0", "id-30.0"), captor.getAllValues().stream().map(TelemetryReceivedEvent::reportId).toList());
+        verify(rollupAggregator, times(2)).record(any());
+        verify(liveBroadcaster, times(2)).publish(any());
+    }
+
+    @Test
+    void processAndSaveTelemetryBatch_reportsBulkWriteErrorsPerRecord() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        when(metricReportRepository.insertUnordered(anyList()))
+                .thenReturn(List.of(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 1)));
+
+        TelemetryBatchResult result = telemetryService.processAndSaveTelemetryBatch(List.of(
+                telemetry("agent-1", "key-1", 10),
+                telemetry("agent-1", "key-1", 20)));
+
+        assertEquals(1, result.saved().size());
+        assertEquals(10.0, result.saved().get(0).cpuUsage());
+        assertEquals(1, result.failures().size());
+        assertEquals(1, result.failures().get(0).index());
+        assertInstanceOf(DataIntegrityViolationException.class, result.failures().get(0).cause());
+        verify(eventPublisher, times(1)).publishEvent(any(TelemetryReceivedEvent.class));
+    }
+
+    @Test
+    void processAndSaveTelemetryBatch_duplicates_areSkippedWithoutFailures() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        TelemetryData redelivered = telemetry("agent-1", "key-1", 10);
+        redelivered.setSentAt(Instant.parse("2026-10-18T12:00:00Z"));
+        when(deduplicator.isDuplicate(any())).thenAnswer(invocation -> "agent-1|2026-10-18T12:00:00Z".equals(invocation.getArgument(0)));
+        // The second fresh sample turns out to be stored already; only the unique index notices
+        when(metricReportRepository.insertUnordered(anyList()))
+                .thenReturn(List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)));
+
+        TelemetryBatchResult result = telemetryService.processAndSaveTelemetryBatch(List.of(
+                redelivered,
+                telemetry("agent-1", "key-1", 20),
+                telemetry("agent-1", "key-1", 30)));
+
+        assertEquals(List.of(20.0), result.saved().stream().map(TelemetryResponse::cpuUsage).toList());
+        assertTrue(result.failures().isEmpty());
+        verify(deduplicator).recordIndexDuplicate();
+        verify(eventPublisher, times(1)).publishEvent(any(TelemetryReceivedEvent.class));
+    }
+
+    @Test
+    void processAndSaveTelemetry_duplicate_isNeitherStoredNorAnalyzed() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        TelemetryData data = telemetry("agent-1", "key-1", 10);
+        data.setSentAt(Instant.parse("2026-10-18T12:00:00Z"));
+        data.setSequence(7L);
+        when(deduplicator.isDuplicate("agent-1|2026-10-18T12:00:00Z|7")).thenReturn(true);
+
+        assertTrue(telemetryService.processAndSaveTelemetry(data).isEmpty());
+        verify(metricReportRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
+        assertEquals(1.0, meterRegistry.get("telemetry.ingest.messages").tag("outcome", "duplicate").counter().count());
+    }
+
+    @Test
+    void processAndSaveTelemetry_timesEachStageAndCountsTheOutcome() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        when(metricReportRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        telemetryService.processAndSaveTelemetry(telemetry("agent-1", "key-1", 10));
+
+        for (String stage : List.of("validate", "deduplicate", "intern", "resolve", "map", "store", "views", "publish")) {
+            assertEquals(1, meterRegistry.get("telemetry.ingest.stage").tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(0, meterRegistry.get("telemetry.ingest.stage").tag("stage", "store-batch").timer().count());
+        assertEquals(1.0, meterRegistry.get("telemetry.ingest.messages").tag("outcome", "stored").counter().count());
+    }
+
+    @Test
+    void processAndSaveTelemetryBatch_whenStoreUnavailable_failsEveryValidRecord() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        when(metricReportRepository.insertUnordered(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Timed out"));
+
+        TelemetryBatchResult result = telemetryService.processAndSaveTelemetryBatch(List.of(
+                telemetry("agent-1", "key-1", 10),
+                telemetry("agent-1", "key-1", 20)));
+
+        assertTrue(result.saved().isEmpty());
+        assertEquals(List.of(0, 1), result.failures().stream().map(TelemetryBatchResult.Failure::index).toList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void processAndSaveTelemetry_deltaRetriedAfterFailedSave_stillExpandsToCompleteLists() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        when(metricReportRepository.save(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataAccessResourceFailureException("Timed out"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        TelemetryData full = telemetry("agent-1", "key-1", 10);
+        full.setSequence(1L);
+        full.setProcesses(List.of(new TelemetryData.ProcessData(10, "nginx", 1.0, "root")));
+        telemetryService.processAndSaveTelemetry(full);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> telemetryService.processAndSaveTelemetry(delta()));
+        TelemetryData retried = delta();
+        telemetryService.processAndSaveTelemetry(retried);
+
+        assertEquals(List.of(10, 20), retried.getProcesses().stream().map(TelemetryData.ProcessData::getPid).toList());
+        verify(eventPublisher, times(2)).publishEvent(any(TelemetryReceivedEvent.class));
+        // Only stored samples are remembered by the duplicate filter, not the failed attempt
+        verify(deduplicator, times(2)).recordStored(any());
+    }
+
+    @Test
+    void processAndSaveTelemetryBatch_deltaRetriedAfterFailedInsert_stillExpandsToCompleteLists() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        when(metricReportRepository.insertUnordered(anyList()))
+                .thenReturn(List.of())
+                .thenThrow(new DataAccessResourceFailureException("Timed out"))
+                .thenReturn(List.of());
+        TelemetryData full = telemetry("agent-1", "key-1", 10);
+        full.setSequence(1L);
+        full.setProcesses(List.of(new TelemetryData.ProcessData(10, "nginx", 1.0, "root")));
+        telemetryService.processAndSaveTelemetryBatch(List.of(full));
+
+        assertEquals(1, telemetryService.processAndSaveTelemetryBatch(List.of(delta())).failures().size());
+        TelemetryData retried = delta();
+        TelemetryBatchResult result = telemetryService.processAndSaveTelemetryBatch(List.of(retried));
+
+        assertTrue(result.failures().isEmpty());
+        assertEquals(List.of(10, 20), retried.getProcesses().stream().map(TelemetryData.ProcessData::getPid).toList());
+        verify(eventPublisher, times(2)).publishEvent(any(TelemetryReceivedEvent.class));
+    }
+
+    @Test
+    void getLatest_afterIngest_isServedWithoutTheDatabase() {
+        when(agentValidationService.validate(any(), any()))
+                .thenReturn(new AgentValidationService.AgentValidationResult("agent-1", "host-1", true));
+        when(metricReportRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        TelemetryData newer = telemetry("agent-1", "key-1", 30);
+        newer.setTimestamp(LocalDateTime.of(2026, 10, 18, 12, 0, 10));
+        TelemetryData retriedOlder = telemetry("agent-1", "key-1", 20);
+        retriedOlder.setTimestamp(LocalDateTime.of(2026, 10, 18, 12, 0, 0));
+
+        telemetryService.processAndSaveTelemetry(newer);
+        telemetryService.processAndSaveTelemetry(retriedOlder);
+
+        assertEquals(30.0, telemetryService.getLatest("agent-1").orElseThrow().cpuUsage());
+        verify(metricReportRepository, never()).findTopByAgentIdOrderByReceivedAtDesc(any());
+    }
+
+    @Test
+    void getLatest_onMiss_readsTheDatabaseOnce() {
+        when(metricReportRepository.findTopByAgentIdOrderByReceivedAtDesc("agent-1")).thenReturn(Optional.of(
+                MetricReportDocument.builder().agentId("agent-1").cpuUsage(42).receivedAt(LocalDateTime.now()).build()));
+
+        assertEquals(42.0, telemetryService.getLatest("agent-1").orElseThrow().cpuUsage());
+        assertEquals(42.0, telemetryService.getLatest("agent-1").orElseThrow().cpuUsage());
+        verify(metricReportRepository, times(1)).findTopByAgentIdOrderByReceivedAtDesc("agent-1");
+    }
+
+    @Test
+    void getAiSummary_mapsTheDatabaseAggregate() {
+        LocalDateTime to = LocalDateTime.of(2026, 10, 18, 12, 0);
+        LocalDateTime from = to.minusHours(6);
+        when(metricReportRepository.summarize("agent-1", from, to)).thenReturn(Optional.of(
+                new MetricWindowSummary(120, 35.5, 60, 2_000_000, 500_000, 20, 61, 45, 60.5)));
+
+        TelemetryAiSummaryResponse summary = telemetryService.getAiSummary("agent-1", from, to);
+
+        assertEquals(new TelemetryAiSummaryResponse("agent-1", 120, 35.5, 60, 2.0, 0.5, 45, 60.5, "RISING", "STABLE"), summary);
+        verify(metricReportRepository, never()).findByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(any(), any(), any());
+    }
+
+    @Test
+    void getAiSummary_windowHeldInMemory_skipsTheDatabase() {
+        LocalDateTime from = LocalDateTime.of(2026, 10, 18, 12, 0);
+        for (int i = 0; i < 6; i++) {
+            recentMetrics.record(new TelemetryResponse("agent-1", "host-1", 20 + 10 * i, 60, 8_192, 40, 256,
+                    1_000_000, 500_000, List.of(), List.of(), from.plusSeconds(10L * i)));
+        }
+
+        TelemetryAiSummaryResponse summary = telemetryService.getAiSummary("agent-1", from, from.plusMinutes(5));
+
+        assertEquals(new TelemetryAiSummaryResponse("agent-1", 6, 45, 60, 1.0, 0.5, 70, 60, "RISING", "STABLE"), summary);
+        verify(metricReportRepository, never()).summarize(any(), any(), any());
+    }
+
+    @Test
+    void getAiSummary_withoutReports_isUnknown() {
+        when(metricReportRepository.summarize(any(), any(), any())).thenReturn(Optional.empty());
+
+        TelemetryAiSummaryResponse summary = telemetryService.getAiSummary("agent-1", LocalDateTime.now().minusHours(1), LocalDateTime.now());
+
+        assertEquals(0, summary.sampleCount());
+        assertEquals("UNKNOWN", summary.cpuTrend());
+    }
+
+    @Test
+    void streamHistory_mapsEachDocumentAndClosesTheCursor() {
+        LocalDateTime to = LocalDateTime.of(2026, 10, 18, 12, 30);
+        LocalDateTime from = to.minusHours(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(metricReportRepository.streamByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc("agent-1", from, to))
+                .thenReturn(Stream.of(
+                        MetricReportDocument.builder().agentId("agent-1").cpuUsage(10).build(),
+                        MetricReportDocument.builder().agentId("agent-1").cpuUsage(20).build())
+                        .onClose(() -> closed.set(true)));
+
+        List<TelemetryResponse> written = new ArrayList<>();
+        telemetryService.streamHistory("agent-1", from, to, written::add);
+
+        assertEquals(List.of(10.0, 20.0), written.stream().map(TelemetryResponse::cpuUsage).toList());
+        assertTrue(written.get(0).processes().isEmpty());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void getHistorySeries_longRange_readsCoarsestResolutionWithEnoughPoints() {
+        LocalDateTime to = LocalDateTime.of(2026, 10, 18, 12, 30);
+        LocalDateTime from = to.minusDays(30);
+        MetricRollupDocument bucket = MetricRollupDocument.builder()
+                .agentId("agent-1")
+                .bucketStart(from.withMinute(0))
+                .sampleCount(4)
+                .cpuUsage(new MetricRollupDocument.MetricStats(10, 40, 100, 20))
+                .build();
+        when(rollupRepository.findSeries(RollupResolution.HOUR, "agent-1", from.withMinute(0), to)).thenReturn(List.of(bucket));
+
+        TelemetrySeriesResponse series = telemetryService.getHistorySeries("agent-1", from, to, 300);
+
+        assertEquals("HOUR", series.resolution());
+        assertEquals(3600, series.bucketSeconds());
+        assertEquals(new TelemetrySeriesResponse.MetricSummary(10, 25, 40, 20), series.points().get(0).cpuUsage());
+        verify(metricReportRepository, never()).findSamplesByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(any(), any(), any());
+    }
+
+    @Test
+    void getHistorySeries_shortRange_fallsBackToRawSamples() {
+        LocalDateTime to = LocalDateTime.of(2026, 10, 18, 12, 30);
+        LocalDateTime from = to.minusHours(1);
+        when(metricReportRepository.findSamplesByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc("agent-1", from, to))
+                .thenReturn(List.of(sample(12, from.plusSeconds(10))));
+
+        TelemetrySeriesResponse series = telemetryService.getHistorySeries("agent-1", from, to, 300);
+
+        assertEquals("RAW", series.resolution());
+        assertEquals(1, series.points().size());
+        assertEquals(12, series.points().get(0).cpuUsage().max());
+        verify(rollupRepository, never()).findSeries(any(), any(), any(), any());
+    }
+
+    @Test
+    void getHistoryMetrics_mapsProjectedSamples() {
+        LocalDateTime to = LocalDateTime.of(2026, 10, 18, 12, 30);
+        LocalDateTime from = to.minusHours(1);
+        when(metricReportRepository.findSamplesByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc("agent-1", from, to))
+                .thenReturn(List.of(sample(12, from.plusSeconds(10)), sample(14, from.plusSeconds(20))));
+
+        List<TelemetryMetricsResponse> history = telemetryService.getHistoryMetrics("agent-1", from, to);
+
+        assertEquals(List.of(12.0, 14.0), history.stream().map(TelemetryMetricsResponse::cpuUsage).toList());
+        assertEquals(from.plusSeconds(20), history.get(1).receivedAt());
+        verify(metricReportRepository, never()).findByAgentIdAndReceivedAtBetweenOrderByReceivedAtAsc(any(), any(), any());
+    }
+
+    private MetricSample sample(double cpu, LocalDateTime receivedAt) {
+        return new MetricSample("agent-1", "host-1", cpu, 40, 8192, 55, 256, 1000, 2000, receivedAt);
+    }
+
+    private TelemetryData delta() {
+        TelemetryData delta = telemetry("agent-1", "key-1", 20);
+        delta.setSequence(2L);
+        delta.setBaseSequence(1L);
+        delta.setProcesses(List.of(new TelemetryData.ProcessData(20, "java", 5.0, "root")));
+        return delta;
+    }
+
+    private TelemetryData telemetry(String agentId, String apiKey, double cpu) {
+        return TelemetryData.builder()
+                .agentId(agentId)
+                .apiKey(apiKey)
+                .hostname("host-1")
+                .cpuUsage(cpu)
+                .build();
+    }
+}
@@ -3,6 +3,7 @@ import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../../environments/environment';
 import { MetricReport } from '../models/api.models';
+import { AuthService } from './auth.service';
 
 export interface MetricReportDetail extends MetricReport {
   processes: ProcessInfo[];
@@ -26,18 +27,104 @@ export interface NetworkConnectionInfo {
   processName: string;
 }
 
+/** Metrics over an interval: raw samples or rollup buckets, whichever is coarsest while still giving enough points. */
+export interface TelemetrySeries {
+  agentId: string;
+  resolution: string;
+  bucketSeconds: number;
+  from: string;
+  to: string;
+  points: SeriesPoint[];
+}
+
+export interface SeriesPoint {
+  timestamp: string;
+  sampleCount: number;
+  cpuUsage: MetricSummary;
+  ramUsedPercent: MetricSummary;
+  diskUsedPercent: MetricSummary;
+  bytesSentSec: MetricSummary;
+  bytesRecvSec: MetricSummary;
+}
+
+export interface MetricSummary {
+  min: number;
+  avg: number;
+  max: number;
+  last: number;
+}
+
 @Injectable({ providedIn: 'root' })
 export class TelemetryService {
   private readonly baseUrl = `${environment.apiUrl}/api/v1/telemetry`;
 
-  constructor(private readonly http: HttpClient) {}
+  constructor(
+    private readonly http: HttpClient,
+    private readonly auth: AuthService,
+  ) {}
 
-  getHistory(agentId: string, hoursBack: number = 1): Observable<MetricReportDetail[]> {
-    const params = new HttpParams().set('hoursBack', hoursBack.toString());
-    return this.http.get<MetricReportDetail[]>(`${this.baseUrl}/agents/${agentId}/history`, { params });
+  getHistorySeries(agentId: string, hoursBack: number = 1, points: number = 300): Observable<TelemetrySeries> {
+    const params = new HttpParams().set('hoursBack', hoursBack.toString()).set('points', points.toString());
+    return this.http.get<TelemetrySeries>(`${this.baseUrl}/agents/${agentId}/history/series`, { params });
   }
 
   getLatest(agentId: string): Observable<MetricReportDetail> {
     return this.http.get<MetricReportDetail>(`${this.baseUrl}/agents/${agentId}/latest`);
   }
+
+  /**
+   * Reports pushed by the backend as they are stored, for one agent or the whole fleet.
+   * Uses fetch rather than EventSource so the token travels in the Authorization header, not the URL.
+   */
+  streamLive(agentId?: string): Observable<MetricReportDetail> {
+    return new Observable<MetricReportDetail>((subscriber) => {
+      const controller = new AbortController();
+      const params = new URLSearchParams();
+      if (agentId) {
+        params.set('agentId', agentId);
+      }
+      const token = this.auth.getToken();
+      const headers: Record<string, string> = { Accept: 'text/event-stream' };
+      if (token) {
+        headers['Authorization'] = `Bearer ${token}`;
+      }
+
+      fetch(`${this.baseUrl}/live?${params}`, { headers, signal: controller.signal })
+        .then(async (response) => {
+          if (!response.ok || !response.body) {
+            throw new Error(`Live telemetry unavailable (${response.status})`);
+          }
+          const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+          let buffer = '';
+          for (;;) {
+            const { value, done } = await reader.read();
+            if (done) {
+              break;
+            }
+            buffer += value;
+            let boundary: number;
+            while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+              const data = buffer
+                .slice(0, boundary)
+                .split('\n')
+                .filter((line) => line.startsWith('data:'))
+                .map((line) => line.slice(5).trimStart())
+                .join('\n');
+              buffer = buffer.slice(boundary + 2);
+              if (data) {
+                subscriber.next(JSON.parse(data) as MetricReportDetail);
+              }
+            }
+          }
+          subscriber.complete();
+        })
+        .catch((err) => {
+          if (!controller.signal.aborted) {
+            subscriber.error(err);
+          }
+        });
+
+      return () => controller.abort();
+    });
+  }
 }
@@ -1,8 +1,8 @@
 import { Component, OnInit, OnDestroy } from '@angular/core';
 import { NgClass, DecimalPipe, DatePipe } from '@angular/common';
-import { TelemetryService, MetricReportDetail } from '../../core/services/telemetry.service';
+import { TelemetryService, MetricReportDetail, SeriesPoint } from '../../core/services/telemetry.service';
 import { AgentDetails } from '../../core/models/api.models';
-import { Subject, switchMap, timer, takeUntil, catchError, of } from 'rxjs';
+import { Subject, switchMap, takeUntil, catchError, of, concat, repeat, retry } from 'rxjs';
 import { Store } from '@ngrx/store';
 import { AgentActions } from '../../store/agents/agents.actions';
 import { selectAllAgents } from '../../store/agents/agents.selectors';
@@ -18,7 +18,7 @@ export class TelemetryPageComponent implements OnInit, OnDestroy {
   protected agents: AgentDetails[] = [];
   protected selectedAgent: AgentDetails | null = null;
   protected latestReport: MetricReportDetail | null = null;
-  protected historyReports: MetricReportDetail[] = [];
+  protected historyPoints: SeriesPoint[] = [];
   protected loading = true;
   protected telemetryLoading = false;
 
@@ -33,12 +33,13 @@ export class TelemetryPageComponent implements OnInit, OnDestroy {
   ngOnInit() {
     this.agentSelected$
       .pipe(
+        // Latest stored report first, then reports pushed as they arrive; reconnect when the stream ends
         switchMap((agentId) =>
-          timer(0, 10_000).pipe(
-            switchMap(() =>
-              this.telemetryService.getLatest(agentId).pipe(
-                catchError(() => of(null)),
-              ),
+          concat(
+            this.telemetryService.getLatest(agentId).pipe(catchError(() => of(null))),
+            this.telemetryService.streamLive(agentId).pipe(
+              repeat({ delay: 1_000 }),
+              retry({ delay: 5_000 }),
             ),
           ),
         ),
@@ -77,7 +78,7 @@ export class TelemetryPageComponent implements OnInit, OnDestroy {
   protected selectAgent(agent: AgentDetails): void {
     this.selectedAgent = agent;
     this.latestReport = null;
-    this.historyReports = [];
+    this.historyPoints = [];
     this.telemetryLoading = true;
     this.agentSelected$.next(agent.agentId);
     this.loadHistory(agent.agentId);
@@ -106,14 +107,14 @@ export class TelemetryPageComponent implements OnInit, OnDestroy {
   }
 
   protected formatBytes(bytes: number): string {
-    if (bytes < 1024) return `${bytes} B/s`;
+    if (bytes < 1024) return `${Math.round(bytes)} B/s`;
     if (bytes < 1024 * 1024) return `${(bytes / 1024).toFixed(1)} KB/s`;
     return `${(bytes / (1024 * 1024)).toFixed(1)} MB/s`;
   }
 
   private loadHistory(agentId: string): void {
-    this.telemetryService.getHistory(agentId, 1).subscribe((reports) => {
-      this.historyReports = reports;
+    this.telemetryService.getHistorySeries(agentId, 1).subscribe((series) => {
+      this.historyPoints = series.points;
     });
   }
 }